@@ -22,9 +22,7 @@ public class CompressingCacheManagerPostProcessor implements BeanPostProcessor {
     @Override
     public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
         if (isCompressingTargetRedisCache(bean, beanName)){
-            long thresholdSize = compressingProperties.getThresholdSize();
-
-            return new CompressingRedisCacheManager((RedisCacheManager) bean, beanName, thresholdSize);
+            return new CompressingRedisCacheManager((RedisCacheManager) bean, beanName, compressingProperties);
         }
         return bean;
     }
@@ -3,19 +3,34 @@ package com.blog4j.compress;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.stream.IntStream;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 import org.apache.commons.io.IOUtils;
 import org.springframework.data.redis.serializer.SerializationException;
 
 public class CompressingUtils {
+
+    /*
+        block format
+        [magic 4byte][original length 4byte][block size 4byte][block count 4byte][compressed block length 4byte * block count][gzip blocks...]
+        every block is an independent gzip member, so blocks can be compressed and decompressed in parallel.
+     */
+    private static final byte[] BLOCK_MAGIC = {(byte) 0x1f, (byte) 0x8c, 'B', 'K'};
+    private static final int BLOCK_HEADER_SIZE = BLOCK_MAGIC.length + Integer.BYTES * 3;
+
     public static byte[] compressGzip(byte[] data) {
+        return compressGzip(data, 0, data.length);
+    }
+
+    private static byte[] compressGzip(byte[] data, int offset, int length) {
         byte[] ret = null;
         ByteArrayOutputStream byteArrayOutputStream = null;
         try {
             byteArrayOutputStream = new ByteArrayOutputStream();
             GZIPOutputStream gzipOutputStream= new GZIPOutputStream(byteArrayOutputStream);
-            gzipOutputStream.write(data);
+            gzipOutputStream.write(data, offset, length);
             gzipOutputStream.close();   //    finish
 
             ret = byteArrayOutputStream.toByteArray();
@@ -55,4 +70,105 @@ public class CompressingUtils {
         return (source[0] == (byte) (GZIPInputStream.GZIP_MAGIC)) && (source[1] == (byte) (GZIPInputStream.GZIP_MAGIC >> 8));
     }
 
+    /**
+     * Split {@code data} into blocks of {@code blockSize} bytes and compress every block in parallel
+     * on the common fork-join pool. The block index is written in front of the compressed blocks.
+     *
+     * @param data serialized value; must not be {@literal null}.
+     * @param blockSize size of a single uncompressed block; must be positive.
+     * @return block compressed value.
+     */
+    public static byte[] compressGzipBlocks(byte[] data, int blockSize) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("blockSize must be positive");
+        }
+        int blockCount = Math.max(1, (data.length + blockSize - 1) / blockSize);
+        byte[][] blocks = new byte[blockCount][];
+
+        IntStream.range(0, blockCount).parallel().forEach(i -> {
+            int offset = i * blockSize;
+            blocks[i] = compressGzip(data, offset, Math.min(blockSize, data.length - offset));
+        });
+
+        int totalSize = BLOCK_HEADER_SIZE + Integer.BYTES * blockCount;
+        for (byte[] block : blocks) {
+            totalSize += block.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(totalSize);
+        buffer.put(BLOCK_MAGIC).putInt(data.length).putInt(blockSize).putInt(blockCount);
+        for (byte[] block : blocks) {
+            buffer.putInt(block.length);
+        }
+        for (byte[] block : blocks) {
+            buffer.put(block);
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Decompress a value written by {@link #compressGzipBlocks(byte[], int)}. Blocks are inflated in parallel
+     * directly into a preallocated output array.
+     *
+     * @param data block compressed value; must not be {@literal null}.
+     * @return the original serialized value.
+     */
+    public static byte[] decompressGzipBlocks(byte[] data) {
+        if (!isCompressedGzipBlocks(data)) {
+            throw new SerializationException("Unable to decompress data, missing block header");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(data, BLOCK_MAGIC.length, data.length - BLOCK_MAGIC.length);
+        int originalLength = buffer.getInt();
+        int blockSize = buffer.getInt();
+        int blockCount = buffer.getInt();
+        if (originalLength < 0 || blockSize <= 0
+                || blockCount != Math.max(1, (originalLength + (long) blockSize - 1) / blockSize)
+                || (long) blockCount * Integer.BYTES > buffer.remaining()) {
+            throw new SerializationException("Unable to decompress data, invalid block header");
+        }
+
+        int[] blockOffsets = new int[blockCount];
+        int[] blockLengths = new int[blockCount];
+        long offset = BLOCK_HEADER_SIZE + (long) Integer.BYTES * blockCount;
+        for (int i = 0; i < blockCount; i++) {
+            blockLengths[i] = buffer.getInt();
+            if (blockLengths[i] < 0) {
+                throw new SerializationException("Unable to decompress data, invalid block index");
+            }
+            blockOffsets[i] = (int) offset;
+            offset += blockLengths[i];
+        }
+        if (offset != data.length) {
+            throw new SerializationException("Unable to decompress data, invalid block index");
+        }
+
+        byte[] ret = new byte[originalLength];
+        IntStream.range(0, blockCount).parallel().forEach(i -> {
+            int outOffset = i * blockSize;
+            int outLength = Math.min(blockSize, originalLength - outOffset);
+            try (GZIPInputStream gzipInputStream = new GZIPInputStream(
+                    new ByteArrayInputStream(data, blockOffsets[i], blockLengths[i]))) {
+                // read up to EOF so the CRC32 / ISIZE trailer of the block is verified
+                if (gzipInputStream.readNBytes(ret, outOffset, outLength) != outLength
+                        || gzipInputStream.read() != -1) {
+                    throw new SerializationException("Unable to decompress data, block " + i + " has an unexpected length");
+                }
+            } catch (IOException e) {
+                throw new SerializationException("Unable to decompress data", e);
+            }
+        });
+        return ret;
+    }
+
+    public static boolean isCompressedGzipBlocks(byte[] source) {
+        if (source == null || source.length < BLOCK_HEADER_SIZE) {
+            return false;
+        }
+        for (int i = 0; i < BLOCK_MAGIC.length; i++) {
+            if (source[i] != BLOCK_MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
 }
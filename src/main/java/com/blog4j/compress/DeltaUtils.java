@@ -0,0 +1,207 @@
+package com.blog4j.compress;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import org.springframework.data.redis.serializer.SerializationException;
+
+public class DeltaUtils {
+
+    /*
+        delta format
+        [target length varint][op...]
+        COPY   : [0][base offset varint][length varint]
+        INSERT : [1][length varint][bytes]
+
+        record format (stored in redis)
+        [magic 4byte][base id 8byte][payload]
+        delta record payload is a delta, base record payload is the (compressed) base value.
+     */
+    private static final byte COPY = 0;
+    private static final byte INSERT = 1;
+    private static final int MATCH_BLOCK_SIZE = 16;
+
+    private static final byte[] DELTA_RECORD_MAGIC = {(byte) 0x1f, (byte) 0x8d, 'D', 'T'};
+    private static final byte[] BASE_RECORD_MAGIC = {(byte) 0x1f, (byte) 0x8d, 'B', 'S'};
+    private static final int RECORD_HEADER_SIZE = 4 + Long.BYTES;
+
+    /**
+     * Create a delta that rebuilds {@code target} from {@code base}. Blocks of the base are indexed and
+     * matching regions of the target are encoded as copies, everything else as literal inserts.
+     *
+     * @param base value the delta is applied to; must not be {@literal null}.
+     * @param target value the delta rebuilds; must not be {@literal null}.
+     * @return the delta; never {@literal null}.
+     */
+    public static byte[] diff(byte[] base, byte[] target) {
+        Map<Integer, Integer> blocks = new HashMap<>();
+        for (int offset = 0; offset + MATCH_BLOCK_SIZE <= base.length; offset += MATCH_BLOCK_SIZE) {
+            blocks.putIfAbsent(blockHash(base, offset), offset);
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeVarInt(out, target.length);
+
+        int literalStart = 0;
+        int position = 0;
+        while (position + MATCH_BLOCK_SIZE <= target.length) {
+            Integer baseOffset = blocks.get(blockHash(target, position));
+            if (baseOffset == null || !Arrays.equals(base, baseOffset, baseOffset + MATCH_BLOCK_SIZE,
+                    target, position, position + MATCH_BLOCK_SIZE)) {
+                position++;
+                continue;
+            }
+            int matchBase = baseOffset;
+            int matchStart = position;
+            // extend the match backwards into the pending literal
+            while (matchStart > literalStart && matchBase > 0 && base[matchBase - 1] == target[matchStart - 1]) {
+                matchBase--;
+                matchStart--;
+            }
+            // and forwards as far as both values match
+            int matchEnd = position + MATCH_BLOCK_SIZE;
+            int baseEnd = baseOffset + MATCH_BLOCK_SIZE;
+            while (matchEnd < target.length && baseEnd < base.length && base[baseEnd] == target[matchEnd]) {
+                matchEnd++;
+                baseEnd++;
+            }
+            writeInsert(out, target, literalStart, matchStart);
+            out.write(COPY);
+            writeVarInt(out, matchBase);
+            writeVarInt(out, matchEnd - matchStart);
+            literalStart = matchEnd;
+            position = matchEnd;
+        }
+        writeInsert(out, target, literalStart, target.length);
+        return out.toByteArray();
+    }
+
+    /**
+     * Create a delta that rebuilds a base of {@code length} bytes as is, a single copy of the whole base.
+     *
+     * @param length length of the base.
+     * @return the delta; never {@literal null}.
+     */
+    public static byte[] fullCopy(int length) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeVarInt(out, length);
+        if (length > 0) {
+            out.write(COPY);
+            writeVarInt(out, 0);
+            writeVarInt(out, length);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Rebuild the target value from {@code base} and a delta created by {@link #diff(byte[], byte[])}.
+     *
+     * @param base value the delta was created against; must not be {@literal null}.
+     * @param delta the delta; must not be {@literal null}.
+     * @return the target value.
+     */
+    public static byte[] patch(byte[] base, byte[] delta) {
+        ByteBuffer in = ByteBuffer.wrap(delta);
+        try {
+            byte[] target = new byte[readVarInt(in)];
+            int position = 0;
+            while (in.hasRemaining()) {
+                byte op = in.get();
+                if (op == COPY) {
+                    int offset = readVarInt(in);
+                    int length = readVarInt(in);
+                    System.arraycopy(base, offset, target, position, length);
+                    position += length;
+                } else if (op == INSERT) {
+                    int length = readVarInt(in);
+                    in.get(target, position, length);
+                    position += length;
+                } else {
+                    throw new SerializationException("Unable to apply delta, unknown op " + op);
+                }
+            }
+            if (position != target.length) {
+                throw new SerializationException("Unable to apply delta, truncated delta");
+            }
+            return target;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | NegativeArraySizeException e) {
+            throw new SerializationException("Unable to apply delta", e);
+        }
+    }
+
+    public static byte[] toDeltaRecord(long baseId, byte[] delta) {
+        return toRecord(DELTA_RECORD_MAGIC, baseId, delta);
+    }
+
+    public static byte[] toBaseRecord(long baseId, byte[] base) {
+        return toRecord(BASE_RECORD_MAGIC, baseId, base);
+    }
+
+    public static boolean isDeltaRecord(byte[] source) {
+        return hasMagic(source, DELTA_RECORD_MAGIC);
+    }
+
+    public static boolean isBaseRecord(byte[] source) {
+        return hasMagic(source, BASE_RECORD_MAGIC);
+    }
+
+    public static long recordBaseId(byte[] record) {
+        return ByteBuffer.wrap(record, 4, Long.BYTES).getLong();
+    }
+
+    public static byte[] recordPayload(byte[] record) {
+        return Arrays.copyOfRange(record, RECORD_HEADER_SIZE, record.length);
+    }
+
+    private static byte[] toRecord(byte[] magic, long baseId, byte[] payload) {
+        return ByteBuffer.allocate(RECORD_HEADER_SIZE + payload.length)
+                         .put(magic)
+                         .putLong(baseId)
+                         .put(payload)
+                         .array();
+    }
+
+    private static boolean hasMagic(byte[] source, byte[] magic) {
+        return source != null && source.length >= RECORD_HEADER_SIZE
+                && Arrays.equals(source, 0, magic.length, magic, 0, magic.length);
+    }
+
+    private static int blockHash(byte[] data, int offset) {
+        int hash = 1;
+        for (int i = offset; i < offset + MATCH_BLOCK_SIZE; i++) {
+            hash = 31 * hash + data[i];
+        }
+        return hash;
+    }
+
+    private static void writeInsert(ByteArrayOutputStream out, byte[] target, int from, int to) {
+        if (to > from) {
+            out.write(INSERT);
+            writeVarInt(out, to - from);
+            out.write(target, from, to - from);
+        }
+    }
+
+    private static void writeVarInt(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7f) != 0) {
+            out.write((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarInt(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new SerializationException("Unable to apply delta, malformed length");
+    }
+}
@@ -0,0 +1,50 @@
+package com.blog4j.compress.actuate;
+
+import com.blog4j.compress.analyzer.CodecAnalyzer;
+import com.blog4j.compress.analyzer.CodecAnalyzer.AnalysisReport;
+import com.blog4j.compress.decorator.CompressingRedisCacheManager;
+import com.blog4j.compress.decorator.CompressingRedisCacheWrapper;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.cache.Cache;
+import org.springframework.lang.Nullable;
+
+/**
+ * Runs the {@link CodecAnalyzer} on the caches of every {@link CompressingRedisCacheManager}, or on one cache.
+ */
+@Endpoint(id = "compressinganalyzer")
+public class CodecAnalyzerEndpoint {
+    private final List<CompressingRedisCacheManager> cacheManagers;
+    private final CodecAnalyzer codecAnalyzer;
+
+    public CodecAnalyzerEndpoint(List<CompressingRedisCacheManager> cacheManagers, CodecAnalyzer codecAnalyzer) {
+        this.cacheManagers = cacheManagers;
+        this.codecAnalyzer = codecAnalyzer;
+    }
+
+    @ReadOperation
+    public AnalysisReport analyze(@Nullable Integer samples) {
+        return codecAnalyzer.analyze(caches(null), samples);
+    }
+
+    @ReadOperation
+    public AnalysisReport analyze(@Selector String cacheName, @Nullable Integer samples) {
+        return codecAnalyzer.analyze(caches(cacheName), samples);
+    }
+
+    private List<CompressingRedisCacheWrapper> caches(@Nullable String cacheName) {
+        List<CompressingRedisCacheWrapper> caches = new ArrayList<>();
+        for (CompressingRedisCacheManager cacheManager : cacheManagers) {
+            for (String name : cacheManager.getCacheNames()) {
+                Cache cache = cacheManager.getCache(name);
+                if ((cacheName == null || cacheName.equals(name)) && cache instanceof CompressingRedisCacheWrapper wrapper) {
+                    caches.add(wrapper);
+                }
+            }
+        }
+        return caches;
+    }
+}
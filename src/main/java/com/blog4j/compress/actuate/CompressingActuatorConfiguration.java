@@ -0,0 +1,55 @@
+package com.blog4j.compress.actuate;
+
+import com.blog4j.compress.analyzer.CodecAnalyzer;
+import com.blog4j.compress.decorator.CompressingRedisCacheManager;
+import com.blog4j.compress.target.CompressingProperties;
+import java.util.List;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/*
+    actuator and micrometer are optional, the beans are only registered when they are on the classpath.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnClass(name = "org.springframework.boot.actuate.endpoint.annotation.Endpoint")
+public class CompressingActuatorConfiguration {
+
+    @Bean
+    public HotKeysEndpoint compressingHotKeysEndpoint(ObjectProvider<CacheManager> cacheManagers) {
+        return new HotKeysEndpoint(compressingCacheManagers(cacheManagers));
+    }
+
+    /*
+        keys are scanned through the connection of each cache's own cache writer, see CompressingRedisCacheWrapper.scanKeys
+     */
+    @Bean
+    public CodecAnalyzerEndpoint compressingCodecAnalyzerEndpoint(ObjectProvider<CacheManager> cacheManagers,
+                                                                  CompressingProperties compressingProperties) {
+        CodecAnalyzer codecAnalyzer = new CodecAnalyzer(compressingProperties);
+        return new CodecAnalyzerEndpoint(compressingCacheManagers(cacheManagers), codecAnalyzer);
+    }
+
+    /*
+        cache managers are declared as RedisCacheManager / CacheManager and only replaced by
+        CompressingCacheManagerPostProcessor, so they are looked up as CacheManager and filtered.
+     */
+    static List<CompressingRedisCacheManager> compressingCacheManagers(ObjectProvider<CacheManager> cacheManagers) {
+        return cacheManagers.orderedStream()
+                            .filter(CompressingRedisCacheManager.class::isInstance)
+                            .map(CompressingRedisCacheManager.class::cast)
+                            .toList();
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = "io.micrometer.core.instrument.binder.MeterBinder")
+    static class HotKeyMetricsConfiguration {
+
+        @Bean
+        public HotKeyMetrics compressingHotKeyMetrics(ObjectProvider<CacheManager> cacheManagers) {
+            return new HotKeyMetrics(compressingCacheManagers(cacheManagers));
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.blog4j.compress.actuate;
+
+import com.blog4j.compress.decorator.CompressingRedisCacheManager;
+import com.blog4j.compress.decorator.CompressingRedisCacheWrapper;
+import com.blog4j.compress.hotkey.HotKeySketch;
+import com.blog4j.compress.hotkey.HotKeySketch.HotKey;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.util.List;
+import org.springframework.cache.Cache;
+
+/**
+ * Binds the hot key sketch of every cache known at startup to meters, like the cache metrics of spring boot
+ * are bound for the caches available when the registry is bound.
+ */
+public class HotKeyMetrics implements MeterBinder {
+    private final List<CompressingRedisCacheManager> cacheManagers;
+
+    public HotKeyMetrics(List<CompressingRedisCacheManager> cacheManagers) {
+        this.cacheManagers = cacheManagers;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (CompressingRedisCacheManager cacheManager : cacheManagers) {
+            for (String cacheName : cacheManager.getCacheNames()) {
+                Cache cache = cacheManager.getCache(cacheName);
+                if (cache instanceof CompressingRedisCacheWrapper wrapper && wrapper.getHotKeySketch() != null) {
+                    bindTo(registry, wrapper.getHotKeySketch(),
+                            Tags.of("cache.manager", cacheManager.getBeanName(), "cache", cacheName));
+                }
+            }
+        }
+    }
+
+    private void bindTo(MeterRegistry registry, HotKeySketch sketch, Tags tags) {
+        FunctionCounter.builder("cache.compress.accesses", sketch, HotKeySketch::getTotalAccesses)
+                       .tags(tags)
+                       .description("Accesses recorded by the hot key sketch")
+                       .register(registry);
+        FunctionCounter.builder("cache.compress.bytes", sketch, HotKeySketch::getTotalRawBytes)
+                       .tags(tags.and("type", "raw"))
+                       .baseUnit("bytes")
+                       .description("Serialized bytes before compression")
+                       .register(registry);
+        FunctionCounter.builder("cache.compress.bytes", sketch, HotKeySketch::getTotalStoredBytes)
+                       .tags(tags.and("type", "stored"))
+                       .baseUnit("bytes")
+                       .description("Bytes transferred to and from redis")
+                       .register(registry);
+        Gauge.builder("cache.compress.hotkey.accesses", sketch, HotKeyMetrics::hottestAccesses)
+             .tags(tags)
+             .description("Estimated accesses of the hottest key in the current window")
+             .register(registry);
+    }
+
+    private static double hottestAccesses(HotKeySketch sketch) {
+        List<HotKey> hottest = sketch.topKeys(1);
+        return hottest.isEmpty() ? 0 : hottest.get(0).accesses();
+    }
+}
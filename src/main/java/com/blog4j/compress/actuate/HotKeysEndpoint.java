@@ -0,0 +1,66 @@
+package com.blog4j.compress.actuate;
+
+import com.blog4j.compress.decorator.CompressingRedisCacheManager;
+import com.blog4j.compress.decorator.CompressingRedisCacheWrapper;
+import com.blog4j.compress.hotkey.HotKeySketch;
+import com.blog4j.compress.hotkey.HotKeySketch.HotKey;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.lang.Nullable;
+
+/**
+ * Exposes the hot keys detected by {@link CompressingRedisCacheWrapper} per cache manager and cache.
+ */
+@Endpoint(id = "compressinghotkeys")
+public class HotKeysEndpoint {
+    private static final int DEFAULT_LIMIT = 10;
+
+    private final List<CompressingRedisCacheManager> cacheManagers;
+
+    public HotKeysEndpoint(List<CompressingRedisCacheManager> cacheManagers) {
+        this.cacheManagers = cacheManagers;
+    }
+
+    @ReadOperation
+    public Map<String, Map<String, List<HotKey>>> hotKeys(@Nullable Integer limit) {
+        Map<String, Map<String, List<HotKey>>> result = new LinkedHashMap<>();
+        for (CompressingRedisCacheManager cacheManager : cacheManagers) {
+            Map<String, List<HotKey>> caches = new LinkedHashMap<>();
+            for (CompressingRedisCacheWrapper cache : cacheManager.getCompressingCaches()) {
+                caches.put(cache.getName(), cache.getHotKeys(limit != null ? limit : DEFAULT_LIMIT));
+            }
+            result.put(cacheManager.getBeanName(), caches);
+        }
+        return result;
+    }
+
+    @ReadOperation
+    public Map<String, List<HotKey>> hotKeys(@Selector String cacheName, @Nullable Integer limit) {
+        Map<String, List<HotKey>> result = new LinkedHashMap<>();
+        for (CompressingRedisCacheManager cacheManager : cacheManagers) {
+            for (CompressingRedisCacheWrapper cache : cacheManager.getCompressingCaches()) {
+                if (cache.getName().equals(cacheName)) {
+                    result.put(cacheManager.getBeanName(), cache.getHotKeys(limit != null ? limit : DEFAULT_LIMIT));
+                }
+            }
+        }
+        return result;
+    }
+
+    @DeleteOperation
+    public void reset(@Selector String cacheName) {
+        for (CompressingRedisCacheManager cacheManager : cacheManagers) {
+            for (CompressingRedisCacheWrapper cache : cacheManager.getCompressingCaches()) {
+                HotKeySketch sketch = cache.getHotKeySketch();
+                if (sketch != null && cache.getName().equals(cacheName)) {
+                    sketch.reset();
+                }
+            }
+        }
+    }
+}
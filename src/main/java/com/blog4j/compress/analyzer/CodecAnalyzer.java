@@ -0,0 +1,450 @@
+package com.blog4j.compress.analyzer;
+
+import com.blog4j.compress.CompressingUtils;
+import com.blog4j.compress.decorator.CompressingRedisCacheWrapper;
+import com.blog4j.compress.hotkey.HotKeySketch.HotKey;
+import com.blog4j.compress.target.CompressingRedisTargetProperties;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.UnaryOperator;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import org.springframework.data.redis.serializer.SerializationException;
+import org.springframework.lang.Nullable;
+
+/**
+ * What-if analyzer that samples live entries of a {@link CompressingRedisCacheWrapper}, benchmarks the codecs the
+ * wrapper can be configured with on the decoded values in memory and recommends {@code thresholdSize},
+ * {@code parallelThresholdSize} and {@code blockSize}. Levels and dictionary options the wrapper does not support are
+ * measured separately as hypothetical codecs.
+ * <p>
+ * Keys are sampled with SCAN over the key namespace of the cache through the connection of its cache writer,
+ * otherwise, or when the cache has no key prefix, from the hot keys of the cache. Caches without either are reported
+ * as not sampled. SCAN visits at most {@code analyzerMaxScanKeys} keys per cache and pauses
+ * {@code analyzerScanPageDelay} after every page. Only one analysis runs at a time, at most once per
+ * {@code analyzerMinInterval}, and reads are spaced by {@code analyzerKeyDelay}.
+ */
+public class CodecAnalyzer {
+    private static final int MAX_DICTIONARY_SIZE = 32 * 1024;
+    // a value is worth compressing when it shrinks by at least 10%
+    private static final double EFFECTIVE_RATIO = 0.9;
+    // blocks may store up to 5% more than gzip when they round trip faster
+    private static final double BLOCKS_SIZE_TOLERANCE = 1.05;
+    private static final Codec GZIP = new Codec("gzip", CompressingUtils::compressGzip, CompressingUtils::decompressGzip);
+    private static final String NOT_SAMPLED = "not sampled";
+
+    private final CompressingRedisTargetProperties properties;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private boolean hasRun;
+    private long lastRunAt;
+
+    public CodecAnalyzer(CompressingRedisTargetProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Analyze the given caches.
+     *
+     * @param caches caches to sample.
+     * @param sampleSize number of keys to sample per cache, capped by {@code analyzerSampleSize}; {@literal null} for the cap.
+     * @return the report; the status tells when the analysis was rejected by the rate limit
+     * or some caches could not be sampled.
+     */
+    public AnalysisReport analyze(List<CompressingRedisCacheWrapper> caches, @Nullable Integer sampleSize) {
+        if (!running.compareAndSet(false, true)) {
+            return new AnalysisReport("rejected: an analysis is already running", null, List.of());
+        }
+        try {
+            long now = System.nanoTime();
+            long minIntervalNanos = properties.getAnalyzerMinInterval().toNanos();
+            if (hasRun && now - lastRunAt < minIntervalNanos) {
+                long retryAfterSeconds = (minIntervalNanos - (now - lastRunAt)) / 1_000_000_000L + 1;
+                return new AnalysisReport("rejected: retry after " + retryAfterSeconds + "s", null, List.of());
+            }
+            hasRun = true;
+            lastRunAt = now;
+
+            int samples = sampleSize != null
+                    ? Math.max(1, Math.min(sampleSize, properties.getAnalyzerSampleSize()))
+                    : properties.getAnalyzerSampleSize();
+            List<CacheReport> reports = new ArrayList<>();
+            List<SampledCache> sampledCaches = new ArrayList<>();
+            for (CompressingRedisCacheWrapper cache : caches) {
+                if (Thread.currentThread().isInterrupted()) {
+                    break;
+                }
+                reports.add(analyze(cache, samples, sampledCaches));
+            }
+            long notSampled = reports.stream().filter(report -> report.status().startsWith(NOT_SAMPLED)).count();
+            return new AnalysisReport(notSampled > 0 ? "incomplete: " + notSampled + " cache(s) not sampled" : "ok",
+                    sampledCaches.isEmpty() ? null : recommend(sampledCaches), reports);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private CacheReport analyze(CompressingRedisCacheWrapper cache, int sampleSize, List<SampledCache> sampledCaches) {
+        // without a key prefix SCAN cannot tell the keys of the cache apart from any other key of the database
+        String scanUnsupported = !cache.isScanSupported() ? "the cache writer does not expose its connection"
+                : cache.getKeyNamespace().isEmpty() ? "the cache has no key prefix" : null;
+        KeySample keySample;
+        String status;
+        if (scanUnsupported == null) {
+            keySample = scanKeys(cache, sampleSize);
+            status = "sampled by SCAN";
+        } else if (cache.getHotKeySketch() != null) {
+            keySample = hotKeys(cache, sampleSize);
+            status = "sampled from hot keys: " + scanUnsupported;
+        } else {
+            return new CacheReport(cache.getName(), NOT_SAMPLED + ": " + scanUnsupported
+                    + " and hot key tracking is disabled", cache.getKeyNamespace(), 0, false, 0, 0, 0, 0, List.of(), List.of(),
+                    null);
+        }
+
+        List<byte[]> values = new ArrayList<>();
+        long storedBytes = 0;
+        for (String key : keySample.keys()) {
+            if (!pause()) {
+                break;
+            }
+            byte[] storedValue = cache.getStoredValue(key);
+            byte[] serializedValue = storedValue != null ? cache.toSerializedValue(key, storedValue) : null;
+            if (serializedValue != null) {
+                values.add(serializedValue);
+                storedBytes += storedValue.length;
+            }
+        }
+        if (values.isEmpty()) {
+            return new CacheReport(cache.getName(), status, cache.getKeyNamespace(), keySample.scannedKeys(),
+                    keySample.complete(), 0, 0, 0, 0, List.of(), List.of(), null);
+        }
+
+        // with enough samples, the dictionary is trained on the first quarter and every codec is measured on the rest
+        byte[] dictionary = null;
+        List<byte[]> evaluated = values;
+        if (values.size() >= 4) {
+            int trainingSize = values.size() / 4;
+            dictionary = trainDictionary(values.subList(0, trainingSize));
+            evaluated = values.subList(trainingSize, values.size());
+        }
+
+        long serializedBytes = evaluated.stream().mapToLong(value -> value.length).sum();
+        double avgSerializedBytes = (double) serializedBytes / evaluated.size();
+        double avgStoredBytes = (double) storedBytes / values.size();
+        long keyCount = keySample.scannedKeys();
+
+        List<CodecResult> results = new ArrayList<>();
+        for (Codec codec : codecs(evaluated)) {
+            results.add(benchmark(codec, evaluated, keyCount));
+        }
+        List<CodecResult> hypotheticalResults = new ArrayList<>();
+        for (Codec codec : hypotheticalCodecs(dictionary)) {
+            hypotheticalResults.add(benchmark(codec, evaluated, keyCount));
+        }
+        SampledCache sampledCache = new SampledCache(evaluated, keyCount, Math.round(avgStoredBytes * keyCount));
+        sampledCaches.add(sampledCache);
+        return new CacheReport(cache.getName(), status, cache.getKeyNamespace(), keyCount, keySample.complete(),
+                values.size(), avgSerializedBytes, avgStoredBytes, sampledCache.projectedStoredBytes(), results,
+                hypotheticalResults, recommend(List.of(sampledCache)));
+    }
+
+    /*
+       reservoir sampling over the keys of the cache namespace found within analyzerMaxScanKeys visited keys
+     */
+    private KeySample scanKeys(CompressingRedisCacheWrapper cache, int sampleSize) {
+        List<String> keys = new ArrayList<>(sampleSize);
+        long[] scanned = {0};
+        boolean complete = cache.scanKeys(properties.getAnalyzerMaxScanKeys(), properties.getAnalyzerScanPageDelay(), key -> {
+            scanned[0]++;
+            if (keys.size() < sampleSize) {
+                keys.add(key);
+            } else {
+                long index = ThreadLocalRandom.current().nextLong(scanned[0]);
+                if (index < sampleSize) {
+                    keys.set((int) index, key);
+                }
+            }
+            return true;
+        });
+        return new KeySample(keys, scanned[0], complete);
+    }
+
+    private KeySample hotKeys(CompressingRedisCacheWrapper cache, int sampleSize) {
+        List<String> keys = cache.getHotKeys(sampleSize).stream()
+                                 .map(HotKey::key)
+                                 .toList();
+        return new KeySample(keys, keys.size(), false);
+    }
+
+    private boolean pause() {
+        long delayMillis = properties.getAnalyzerKeyDelay().toMillis();
+        if (delayMillis <= 0) {
+            return !Thread.currentThread().isInterrupted();
+        }
+        try {
+            Thread.sleep(delayMillis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /*
+       the codecs the wrapper can be configured with. gzip-blocks is what parallelThresholdSize of two blocks does:
+       values of at least two blocks are split, smaller ones are gzipped whole
+     */
+    private List<Codec> codecs(List<byte[]> values) {
+        List<Codec> codecs = new ArrayList<>();
+        codecs.add(new Codec("none", UnaryOperator.identity(), UnaryOperator.identity()));
+        codecs.add(GZIP);
+        int blockSize = properties.getBlockSize();
+        if (blockSize > 0 && values.stream().anyMatch(value -> value.length >= 2L * blockSize)) {
+            codecs.add(blocksCodec(2L * blockSize, blockSize));
+        }
+        return codecs;
+    }
+
+    private static Codec blocksCodec(long parallelThresholdSize, int blockSize) {
+        return new Codec("gzip-blocks",
+                value -> value.length >= parallelThresholdSize
+                        ? CompressingUtils.compressGzipBlocks(value, blockSize)
+                        : CompressingUtils.compressGzip(value),
+                value -> CompressingUtils.isCompressedGzipBlocks(value)
+                        ? CompressingUtils.decompressGzipBlocks(value)
+                        : CompressingUtils.decompressGzip(value));
+    }
+
+    /*
+       levels and dictionaries the wrapper cannot be configured with, reported to show what they would save
+     */
+    private static List<Codec> hypotheticalCodecs(@Nullable byte[] dictionary) {
+        List<Codec> codecs = new ArrayList<>();
+        for (int level : new int[] {Deflater.BEST_SPEED, 6, Deflater.BEST_COMPRESSION}) {
+            codecs.add(new Codec("deflate-" + level, value -> deflate(value, level, null), value -> inflate(value, null)));
+        }
+        if (dictionary != null) {
+            codecs.add(new Codec("deflate-6-dictionary", value -> deflate(value, 6, dictionary),
+                    value -> inflate(value, dictionary)));
+        }
+        return codecs;
+    }
+
+    private CodecResult benchmark(Codec codec, List<byte[]> values, long keyCount) {
+        // warm up before measuring
+        for (byte[] value : values) {
+            codec.decoder().apply(codec.encoder().apply(value));
+        }
+        long serializedBytes = 0;
+        long encodedBytes = 0;
+        long encodeNanos = 0;
+        long decodeNanos = 0;
+        for (byte[] value : values) {
+            long start = System.nanoTime();
+            byte[] encoded = codec.encoder().apply(value);
+            long encodedAt = System.nanoTime();
+            byte[] decoded = codec.decoder().apply(encoded);
+            decodeNanos += System.nanoTime() - encodedAt;
+            encodeNanos += encodedAt - start;
+            if (!Arrays.equals(value, decoded)) {
+                throw new IllegalStateException("Codec %s does not round trip".formatted(codec.name()));
+            }
+            serializedBytes += value.length;
+            encodedBytes += encoded.length;
+        }
+        double avgEncodedBytes = (double) encodedBytes / values.size();
+        return new CodecResult(codec.name(),
+                avgEncodedBytes,
+                serializedBytes > 0 ? (double) encodedBytes / serializedBytes : 1,
+                Math.round(avgEncodedBytes * keyCount),
+                encodeNanos / 1_000.0 / values.size(),
+                decodeNanos / 1_000.0 / values.size(),
+                megabytesPerSecond(serializedBytes, encodeNanos),
+                megabytesPerSecond(serializedBytes, decodeNanos));
+    }
+
+    /*
+       the smallest thresholdSize above which every sampled value compresses effectively and, when blocks pay off for
+       the values of at least two blocks (a single block gains nothing), a parallelThresholdSize of two blocks.
+       the settings are global, so the recommendation over several caches weighs each cache by its number of keys
+     */
+    private Recommendation recommend(List<SampledCache> caches) {
+        long largestIneffective = -1;
+        long smallest = Long.MAX_VALUE;
+        long largest = 0;
+        for (SampledCache cache : caches) {
+            for (byte[] value : cache.values()) {
+                smallest = Math.min(smallest, value.length);
+                largest = Math.max(largest, value.length);
+                if (CompressingUtils.compressGzip(value).length >= value.length * EFFECTIVE_RATIO) {
+                    largestIneffective = Math.max(largestIneffective, value.length);
+                }
+            }
+        }
+        long thresholdSize;
+        String reason;
+        if (largestIneffective < 0) {
+            thresholdSize = Math.min(properties.getThresholdSize(), smallest);
+            reason = "every sampled value compresses by at least 10%";
+        } else if (largestIneffective >= largest) {
+            thresholdSize = largest + 1;
+            reason = "compression does not pay off for the largest sampled values, compression is effectively disabled";
+        } else {
+            thresholdSize = largestIneffective + 1;
+            reason = "values up to " + largestIneffective + " bytes do not compress by at least 10%";
+        }
+
+        int blockSize = properties.getBlockSize();
+        long parallelThresholdSize = 0;
+        if (blockSize > 0) {
+            long minBlocksSize = Math.max(thresholdSize, 2L * blockSize);
+            List<byte[]> blockValues = caches.stream()
+                                             .flatMap(cache -> cache.values().stream())
+                                             .filter(value -> value.length >= minBlocksSize)
+                                             .toList();
+            if (!blockValues.isEmpty() && blocksPayOff(blockValues, blockSize)) {
+                parallelThresholdSize = 2L * blockSize;
+                reason += ", values of at least " + parallelThresholdSize + " bytes round trip faster in blocks";
+            }
+        }
+
+        long projectedBytes = 0;
+        long currentProjectedBytes = 0;
+        for (SampledCache cache : caches) {
+            long storedBytes = 0;
+            for (byte[] value : cache.values()) {
+                storedBytes += storedSize(value, thresholdSize, parallelThresholdSize, blockSize);
+            }
+            projectedBytes += Math.round((double) storedBytes / cache.values().size() * cache.keyCount());
+            currentProjectedBytes += cache.projectedStoredBytes();
+        }
+        return new Recommendation(thresholdSize, parallelThresholdSize, blockSize, projectedBytes,
+                currentProjectedBytes - projectedBytes, reason);
+    }
+
+    /*
+       blocks pay off when they round trip faster than gzip and store at most 5% more
+     */
+    private boolean blocksPayOff(List<byte[]> values, int blockSize) {
+        CodecResult gzip = benchmark(GZIP, values, 0);
+        CodecResult blocks = benchmark(blocksCodec(0, blockSize), values, 0);
+        return blocks.avgEncodeMicros() + blocks.avgDecodeMicros() < gzip.avgEncodeMicros() + gzip.avgDecodeMicros()
+                && blocks.avgStoredBytes() <= gzip.avgStoredBytes() * BLOCKS_SIZE_TOLERANCE;
+    }
+
+    private static long storedSize(byte[] value, long thresholdSize, long parallelThresholdSize, int blockSize) {
+        if (value.length < thresholdSize) {
+            return value.length;
+        }
+        if (parallelThresholdSize > 0 && value.length >= parallelThresholdSize) {
+            return CompressingUtils.compressGzipBlocks(value, blockSize).length;
+        }
+        return CompressingUtils.compressGzip(value).length;
+    }
+
+    private static byte[] trainDictionary(List<byte[]> values) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] value : values) {
+            out.write(value, 0, value.length);
+        }
+        byte[] concatenated = out.toByteArray();
+        // deflate only uses the last 32KB of a dictionary
+        return Arrays.copyOfRange(concatenated, Math.max(0, concatenated.length - MAX_DICTIONARY_SIZE), concatenated.length);
+    }
+
+    private static byte[] deflate(byte[] data, int level, @Nullable byte[] dictionary) {
+        Deflater deflater = new Deflater(level);
+        try {
+            if (dictionary != null) {
+                deflater.setDictionary(dictionary);
+            }
+            deflater.setInput(data);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2 + 64);
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                int length = deflater.deflate(buffer);
+                out.write(buffer, 0, length);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] data, @Nullable byte[] dictionary) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length * 2);
+            byte[] buffer = new byte[8192];
+            while (!inflater.finished()) {
+                int length = inflater.inflate(buffer);
+                if (length == 0 && !inflater.finished()) {
+                    if (inflater.needsDictionary() && dictionary != null) {
+                        inflater.setDictionary(dictionary);
+                        continue;
+                    }
+                    if (inflater.needsInput() || inflater.needsDictionary()) {
+                        throw new SerializationException("Unable to decompress data, truncated input");
+                    }
+                }
+                out.write(buffer, 0, length);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new SerializationException("Unable to decompress data", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static double megabytesPerSecond(long bytes, long nanos) {
+        return nanos > 0 ? bytes / (1024.0 * 1024.0) / (nanos / 1_000_000_000.0) : 0;
+    }
+
+    private record Codec(String name, UnaryOperator<byte[]> encoder, UnaryOperator<byte[]> decoder) {
+    }
+
+    private record KeySample(List<String> keys, long scannedKeys, boolean complete) {
+    }
+
+    private record SampledCache(List<byte[]> values, long keyCount, long projectedStoredBytes) {
+    }
+
+    /**
+     * Result of one analysis run. {@code thresholdSize}, {@code parallelThresholdSize} and {@code blockSize} apply to
+     * every cache, the recommendation weighs every sampled cache by its number of keys.
+     */
+    public record AnalysisReport(String status, @Nullable Recommendation recommendation, List<CacheReport> caches) {
+    }
+
+    /**
+     * Sampled sizes of one cache, the benchmark of every codec and the settings recommended if the cache were the only
+     * one. {@code codecs} can be configured, {@code hypotheticalCodecs} cannot. Projections multiply the
+     * average size by the number of scanned keys, a lower bound when the scan was not complete. The status tells
+     * how the keys were sampled, or why they were not. {@code scannedKeys} counts the keys of the cache found by SCAN.
+     */
+    public record CacheReport(String cacheName, String status, String keyNamespace, long scannedKeys, boolean scanComplete,
+                              int sampledKeys, double avgSerializedBytes, double avgStoredBytes,
+                              long projectedStoredBytes, List<CodecResult> codecs, List<CodecResult> hypotheticalCodecs,
+                              @Nullable Recommendation recommendation) {
+    }
+
+    public record CodecResult(String codec, double avgStoredBytes, double compressionRatio, long projectedBytes,
+                              double avgEncodeMicros, double avgDecodeMicros,
+                              double encodeMegabytesPerSecond, double decodeMegabytesPerSecond) {
+    }
+
+    /**
+     * Settings to configure; {@code parallelThresholdSize} is 0 when blocks do not pay off.
+     */
+    public record Recommendation(long thresholdSize, long parallelThresholdSize, int blockSize, long projectedBytes,
+                                 long projectedSavingBytes, String reason) {
+    }
+}
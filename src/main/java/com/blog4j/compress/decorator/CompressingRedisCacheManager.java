@@ -1,7 +1,11 @@
 package com.blog4j.compress.decorator;
 
+import com.blog4j.compress.target.CompressingProperties;
+import com.blog4j.compress.target.CompressingRedisTargetProperties;
 import java.util.Collection;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import org.springframework.cache.Cache;
 import org.springframework.cache.transaction.AbstractTransactionSupportingCacheManager;
 import org.springframework.data.redis.cache.RedisCache;
@@ -15,12 +19,25 @@ public class CompressingRedisCacheManager extends AbstractTransactionSupportingC
     private final RedisCacheManager delegate;
     private final String beanName;
 
-    private final long thresholdSize;
+    private final CompressingRedisTargetProperties properties;
 
-    public CompressingRedisCacheManager(RedisCacheManager delegate, String beanName, long thresholdSize) {
+    // wrappers keep per cache state (generation, ...), so the same instance is returned for a cache name
+    private final ConcurrentMap<String, Cache> caches = new ConcurrentHashMap<>();
+
+    public CompressingRedisCacheManager(RedisCacheManager delegate, String beanName, CompressingRedisTargetProperties properties) {
         this.delegate = delegate;
         this.beanName = beanName;
-        this.thresholdSize = thresholdSize;
+        this.properties = properties;
+    }
+
+    public CompressingRedisCacheManager(RedisCacheManager delegate, String beanName, long thresholdSize) {
+        this(delegate, beanName, thresholdProperties(thresholdSize));
+    }
+
+    private static CompressingRedisTargetProperties thresholdProperties(long thresholdSize) {
+        CompressingRedisTargetProperties properties = new CompressingProperties();
+        properties.setThresholdSize(thresholdSize);
+        return properties;
     }
 
     @Override protected Collection<? extends Cache> loadCaches() {
@@ -31,9 +48,13 @@ public class CompressingRedisCacheManager extends AbstractTransactionSupportingC
 
     @Override
     public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, this::wrapCache);
+    }
+
+    private Cache wrapCache(String name) {
         Cache cache = delegate.getCache(name);
         if (cache instanceof RedisCache) {
-            return new CompressingRedisCacheWrapper((RedisCache) cache, thresholdSize);
+            return new CompressingRedisCacheWrapper((RedisCache) cache, properties);
         } else {
             return cache;
         }
@@ -51,4 +72,14 @@ public class CompressingRedisCacheManager extends AbstractTransactionSupportingC
     public String getBeanName() {
         return this.beanName;
     }
+
+    /**
+     * Return the wrappers created so far, without creating caches that were not requested yet.
+     */
+    public Collection<CompressingRedisCacheWrapper> getCompressingCaches() {
+        return caches.values().stream()
+                     .filter(CompressingRedisCacheWrapper.class::isInstance)
+                     .map(CompressingRedisCacheWrapper.class::cast)
+                     .toList();
+    }
 }
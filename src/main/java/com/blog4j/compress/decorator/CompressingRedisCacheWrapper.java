@@ -1,21 +1,50 @@
 package com.blog4j.compress.decorator;
 
 import static com.blog4j.compress.CompressingUtils.compressGzip;
+import static com.blog4j.compress.CompressingUtils.compressGzipBlocks;
 import static com.blog4j.compress.CompressingUtils.decompressGzip;
+import static com.blog4j.compress.CompressingUtils.decompressGzipBlocks;
 import static com.blog4j.compress.CompressingUtils.isCompressedGzip;
-
+import static com.blog4j.compress.CompressingUtils.isCompressedGzipBlocks;
+import static com.blog4j.compress.DeltaUtils.diff;
+import static com.blog4j.compress.DeltaUtils.fullCopy;
+import static com.blog4j.compress.DeltaUtils.isBaseRecord;
+import static com.blog4j.compress.DeltaUtils.isDeltaRecord;
+import static com.blog4j.compress.DeltaUtils.patch;
+import static com.blog4j.compress.DeltaUtils.recordBaseId;
+import static com.blog4j.compress.DeltaUtils.recordPayload;
+import static com.blog4j.compress.DeltaUtils.toBaseRecord;
+import static com.blog4j.compress.DeltaUtils.toDeltaRecord;
+
+import com.blog4j.compress.hotkey.HotKeySketch;
+import com.blog4j.compress.hotkey.HotKeySketch.HotKey;
+import com.blog4j.compress.target.CompressingRedisTargetProperties;
 import java.io.Serializable;
+import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.StringJoiner;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.support.AbstractValueAdaptingCache;
 import org.springframework.cache.support.NullValue;
 import org.springframework.cache.support.SimpleValueWrapper;
@@ -26,8 +55,13 @@ import org.springframework.data.redis.cache.CacheStatistics;
 import org.springframework.data.redis.cache.RedisCache;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
 import org.springframework.data.redis.util.ByteUtils;
 import org.springframework.lang.Nullable;
 import org.springframework.util.ObjectUtils;
@@ -38,21 +72,85 @@ import org.springframework.util.ReflectionUtils;
     It is a wrapper class that wraps RedisCache and has all the same functions as RedisCache,
     but adds compression and decompression during serialization and deserialization.
  */
+@Slf4j
 public class CompressingRedisCacheWrapper extends AbstractValueAdaptingCache {
     private static final byte[] BINARY_NULL_VALUE = RedisSerializer.java().serialize(NullValue.INSTANCE);
+    private static final int SCAN_BATCH_SIZE = 100;
+    private static final int BASE_RECORD_HEADER_SIZE = 4 + Long.BYTES;
+    private static final int LOCAL_COPY_STRIPES = 1024;
+    /*
+       sweeps block on redis for a while, they get their own thread instead of the common pool the block codec runs on.
+       a single daemon thread runs them one after another
+     */
+    private static final ExecutorService SWEEP_EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "compressing-cache-sweep");
+        thread.setDaemon(true);
+        return thread;
+    });
     private static final String CACHE_RETRIEVAL_UNSUPPORTED_OPERATION_EXCEPTION_MESSAGE = "The Redis driver configured with RedisCache through RedisCacheWriter does not support CompletableFuture-based retrieval";
     private final RedisCache delegate;
+    @Nullable
+    private final RedisConnectionFactory connectionFactory;
     private final long thresholdSize;
-    public CompressingRedisCacheWrapper(RedisCache delegate, long thresholdSize) {
+    private final long parallelThresholdSize;
+    private final int blockSize;
+    private final boolean generationNamespace;
+    private final long generationRefreshNanos;
+    private final boolean sweepStaleGenerations;
+    private volatile long generation = -1;
+    private volatile long generationLoadedAt;
+    @Nullable
+    private final HotKeySketch hotKeySketch;
+    @Nullable
+    private final ConcurrentMap<String, LocalCopy> localCopies;
+    private final AtomicLongArray localCopyWriteStamps = new AtomicLongArray(LOCAL_COPY_STRIPES);
+    private final AtomicLong localCopyClearEpoch = new AtomicLong();
+    private final int hotKeyTopK;
+    private final long hotKeyLocalTtlNanos;
+    @Nullable
+    private final ConcurrentMap<String, DeltaBase> deltaBases;
+    private final int deltaFullWriteInterval;
+    private final double deltaMaxRatio;
+    private final int deltaMaxBases;
+    private final long deltaMaxBaseBytes;
+    private final AtomicLong deltaBaseBytes = new AtomicLong();
+
+    public CompressingRedisCacheWrapper(RedisCache delegate, CompressingRedisTargetProperties properties) {
         super(delegate.getCacheConfiguration().getAllowCacheNullValues());
         this.delegate = delegate;
-        this.thresholdSize = thresholdSize;
+        this.thresholdSize = properties.getThresholdSize();
+        this.parallelThresholdSize = properties.getParallelThresholdSize();
+        this.blockSize = properties.getBlockSize();
+        this.generationNamespace = properties.isGenerationNamespace();
+        this.generationRefreshNanos = properties.getGenerationRefreshInterval().toNanos();
+        this.connectionFactory = resolveConnectionFactory(delegate.getNativeCache());
+        this.sweepStaleGenerations = sweepStaleGenerations(delegate, properties, connectionFactory);
+        this.hotKeyTopK = properties.getHotKeyTopK();
+        this.hotKeyLocalTtlNanos = properties.getHotKeyLocalTtl().toNanos();
+        this.hotKeySketch = properties.isHotKeyTracking()
+                ? new HotKeySketch(properties.getHotKeySketchWidth(), hotKeyTopK, properties.getHotKeyAgingInterval(),
+                        properties.getHotKeyMinShare())
+                : null;
+        this.localCopies = hotKeySketch != null && hotKeyLocalTtlNanos > 0 ? new ConcurrentHashMap<>() : null;
+        this.deltaBases = properties.getDeltaCaches().contains(delegate.getName()) ? new ConcurrentHashMap<>() : null;
+        this.deltaFullWriteInterval = properties.getDeltaFullWriteInterval();
+        this.deltaMaxRatio = properties.getDeltaMaxRatio();
+        this.deltaMaxBases = properties.getDeltaMaxBases();
+        this.deltaMaxBaseBytes = properties.getDeltaMaxBaseBytes();
+    }
+
+    public CompressingRedisCacheWrapper(RedisCache delegate, long thresholdSize) {
+        this(delegate, thresholdProperties(thresholdSize));
     }
 
     public CompressingRedisCacheWrapper(RedisCache delegate) {
-        super(delegate.getCacheConfiguration().getAllowCacheNullValues());
-        this.delegate = delegate;
-        this.thresholdSize = 1;
+        this(delegate, 1);
+    }
+
+    private static CompressingRedisTargetProperties thresholdProperties(long thresholdSize) {
+        CompressingRedisTargetProperties properties = new CompressingRedisTargetProperties();
+        properties.setThresholdSize(thresholdSize);
+        return properties;
     }
 
     @Override
@@ -67,47 +165,317 @@ public class CompressingRedisCacheWrapper extends AbstractValueAdaptingCache {
 
     @Override
     public void evict(Object key) {
-        delegate.evict(key);
+        String cacheKey = createCacheKey(key);
+        getCacheWriter().remove(getName(), serializeCacheKey(cacheKey));
+        if (deltaBases != null) {
+            dropDeltaBase(cacheKey);
+            getCacheWriter().remove(getName(), serializeCacheKey(baseKeyOf(cacheKey)));
+        }
+        invalidateLocalCopy(cacheKey);
     }
 
+    /*
+        with generationNamespace, clear() moves the cache to the next generation in O(1)
+        instead of scanning and deleting every key of the cache.
+     */
     @Override
     public void clear() {
-        delegate.clear();
+        if (deltaBases != null) {
+            deltaBases.keySet().forEach(this::dropDeltaBase);
+        }
+        if (!generationNamespace) {
+            delegate.clear();
+            clearLocalCopies();
+            return;
+        }
+        long nextGeneration = nextGeneration();
+        long staleGeneration = nextGeneration - 1;
+        generation = nextGeneration;
+        generationLoadedAt = System.nanoTime();
+        clearLocalCopies();
+
+        if (sweepStaleGenerations && connectionFactory != null) {
+            String stalePattern = escapeGlob(namespaceOf(staleGeneration)) + "*";
+            String staleBasePattern = escapeGlob(baseKeyOf(namespaceOf(staleGeneration))) + "*";
+            CompletableFuture.runAsync(() -> {
+                                 sweep(stalePattern);
+                                 sweep(staleBasePattern);
+                             }, SWEEP_EXECUTOR)
+                             .whenComplete((ignored, ex) -> {
+                                 if (ex != null) {
+                                     log.warn("Unable to sweep generation {} of cache '{}'", staleGeneration, getName(), ex);
+                                 }
+                             });
+        }
+    }
+
+    /*
+       INCR on the connection bumps the generation atomically. without an accessible connection it falls back to GET + SET
+       through the cache writer: concurrent clears on several instances may then bump it only once, and entries written
+       to the new generation between those clears stay visible until their TTL
+     */
+    private long nextGeneration() {
+        byte[] binaryKey = serializeCacheKey(generationKey());
+        if (connectionFactory != null) {
+            try (RedisConnection connection = connectionFactory.getConnection()) {
+                Long nextGeneration = connection.stringCommands().incr(binaryKey);
+                if (nextGeneration != null) {
+                    return nextGeneration;
+                }
+            }
+        }
+        long nextGeneration = Math.max(loadGeneration(), generation) + 1;
+        getCacheWriter().put(getName(), binaryKey, Long.toString(nextGeneration).getBytes(StandardCharsets.UTF_8), Duration.ZERO);
+        return nextGeneration;
+    }
+
+    /*
+       incremental SCAN + UNLINK in batches, unlike RedisCacheWriter.clean which runs KEYS with the default batch strategy
+     */
+    private void sweep(String pattern) {
+        ScanOptions scanOptions = ScanOptions.scanOptions()
+                                             .match(serializeCacheKey(pattern))
+                                             .count(SCAN_BATCH_SIZE)
+                                             .build();
+        try (RedisConnection connection = connectionFactory.getConnection();
+             Cursor<byte[]> cursor = connection.keyCommands().scan(scanOptions)) {
+            List<byte[]> batch = new ArrayList<>(SCAN_BATCH_SIZE);
+            while (cursor.hasNext()) {
+                batch.add(cursor.next());
+                if (batch.size() >= SCAN_BATCH_SIZE) {
+                    connection.keyCommands().unlink(batch.toArray(new byte[0][]));
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                connection.keyCommands().unlink(batch.toArray(new byte[0][]));
+            }
+        }
+    }
+
+    /*
+       without a TTL nothing ever removes the entries of stale generations, so they are swept even when not asked for
+     */
+    private static boolean sweepStaleGenerations(RedisCache delegate, CompressingRedisTargetProperties properties,
+            @Nullable RedisConnectionFactory connectionFactory) {
+        if (!properties.isGenerationNamespace()) {
+            return properties.isSweepStaleGenerations();
+        }
+        boolean expires = expires(delegate.getCacheConfiguration());
+        if (connectionFactory == null) {
+            if (properties.isSweepStaleGenerations() || !expires) {
+                log.warn("Cache '{}' uses a RedisCacheWriter without an accessible connection, stale generations are {}",
+                        delegate.getName(), expires ? "left to their TTL" : "never removed since entries do not expire");
+            }
+            return false;
+        }
+        if (!properties.isSweepStaleGenerations() && !expires) {
+            log.info("Cache '{}' entries do not expire, stale generations are swept after clear()", delegate.getName());
+            return true;
+        }
+        return properties.isSweepStaleGenerations();
+    }
+
+    /*
+       the TTL function may depend on the key and value, it is probed with an arbitrary key as a best effort
+     */
+    private static boolean expires(RedisCacheConfiguration configuration) {
+        try {
+            Duration timeToLive = configuration.getTtlFunction().getTimeToLive(new Object(), null);
+            return timeToLive != null && timeToLive.isPositive();
+        } catch (RuntimeException ex) {
+            return true;
+        }
+    }
+
+    /*
+       RedisCacheWriter does not expose its connection, the default writer keeps it in its connectionFactory field.
+       null for other writers, sweeping stale generations is then unavailable.
+     */
+    @Nullable
+    private static RedisConnectionFactory resolveConnectionFactory(RedisCacheWriter cacheWriter) {
+        Field field = ReflectionUtils.findField(cacheWriter.getClass(), "connectionFactory", RedisConnectionFactory.class);
+        if (field == null) {
+            return null;
+        }
+        ReflectionUtils.makeAccessible(field);
+        return (RedisConnectionFactory) ReflectionUtils.getField(field, cacheWriter);
+    }
+
+    private static String escapeGlob(String pattern) {
+        return pattern.replaceAll("([*?\\[\\]\\\\])", "\\\\$1");
     }
 
     @Override
     public ValueWrapper get(Object key) {
         // 1. serialize key
-        byte[] binaryKey = createAndConvertCacheKey(key);
+        String cacheKey = createCacheKey(key);
+        LocalCopyGuard localCopyGuard = guardLocalCopy(cacheKey);
+        Object localValue = getLocalCopy(cacheKey, localCopyGuard);
+        if (localValue != null) return toValueWrapper(localValue);
+        byte[] binaryKey = serializeCacheKey(cacheKey);
         // 2. get value(compressed & serialized)
         byte[] binaryValue = delegate.getNativeCache().get(delegate.getName(), binaryKey);
         if (binaryValue == null ) return null;
         // 3. get value(serialized) & decompress(isCompressed==true)
-        if (isCompressedGzip(binaryValue)) {
-            binaryValue = decompressGzip(binaryValue);
-        }
+        byte[] decompressedValue = decompress(cacheKey, binaryValue);
+        if (decompressedValue == null) return null;
+        recordAccess(cacheKey, decompressedValue.length, binaryValue.length);
         // 4. get value(decompress & deserialize)
-        Serializable deserializedValue = deserialize(binaryValue);
-        return () -> deserializedValue;
+        Serializable deserializedValue = deserialize(decompressedValue);
+        keepLocalCopy(cacheKey, localCopyGuard, deserializedValue);
+        return toValueWrapper(deserializedValue);
     }
 
     @Override
     public void put(Object key, Object value) {
         // 1. serialize value using origin serialize cacheConfig
         byte[] serializedValue = serialize((Serializable) value);
+        int rawSize = serializedValue.length;
+        // 2. serialize key
+        String cacheKey = createCacheKey(key);
+        byte[] binaryKey = serializeCacheKey(cacheKey);
+        // 3. get TTL
+        Duration timeToLive = getTimeToLive(key, value);
 
-        // 2. compress value using gzip if serializedValue.length >= thresholdSize
+        // 4. delta caches write a diff against the local base instead of the whole value
+        if (deltaBases != null && putDelta(cacheKey, binaryKey, serializedValue, timeToLive)) {
+            invalidateLocalCopy(cacheKey);
+            return;
+        }
+        // 5. compress value using gzip if serializedValue.length >= thresholdSize
         if (serializedValue.length >= thresholdSize) {
-            serializedValue = compressGzip(serializedValue);
+            serializedValue = compress(serializedValue);
         }
-        // 3. serialize key
-        byte[] binaryKey = createAndConvertCacheKey(key);
-        // 4. get TTL
-        Duration timeToLive = getTimeToLive(key, value);
+        recordAccess(cacheKey, rawSize, serializedValue.length);
 
         RedisCacheWriter cacheWriter = delegate.getNativeCache();
-        // 5. put cache
+        // 6. put cache
         cacheWriter.put(delegate.getName(), binaryKey, serializedValue, timeToLive);
+        invalidateLocalCopy(cacheKey);
+    }
+
+    /*
+       write a delta record when the diff against the local base is small enough and the base is known to be alive.
+       otherwise write a new base record and let the entry point at it with a single copy, so the value is sent and
+       stored only once. returns false without writing when no local base can be kept for the key,
+       the value is then written like in any other cache.
+     */
+    private boolean putDelta(String cacheKey, byte[] binaryKey, byte[] serializedValue, Duration timeToLive) {
+        DeltaBase base = deltaBases.get(cacheKey);
+        long now = System.nanoTime();
+        if (base != null && base.writes() < deltaFullWriteInterval && outlivesDelta(base, now, timeToLive)) {
+            byte[] delta = diff(base.value(), serializedValue);
+            if (delta.length <= serializedValue.length * deltaMaxRatio && isBaseInRedis(cacheKey, base.id())) {
+                byte[] deltaRecord = toDeltaRecord(base.id(), delta);
+                getCacheWriter().put(getName(), binaryKey, deltaRecord, timeToLive);
+                deltaBases.replace(cacheKey, base, new DeltaBase(base.id(), base.value(), base.writes() + 1, base.expiresAt()));
+                recordAccess(cacheKey, serializedValue.length, deltaRecord.length);
+                return true;
+            }
+        }
+        if (!canKeepDeltaBase(cacheKey, serializedValue.length)) {
+            if (dropDeltaBase(cacheKey)) {
+                getCacheWriter().remove(getName(), serializeCacheKey(baseKeyOf(cacheKey)));
+            }
+            return false;
+        }
+        byte[] compressedValue = serializedValue.length >= thresholdSize ? compress(serializedValue) : serializedValue;
+        long baseId = ThreadLocalRandom.current().nextLong();
+        // the base lives for two TTLs, deltas are only written while they expire before the base
+        boolean expiring = timeToLive != null && timeToLive.isPositive();
+        Duration baseTimeToLive = expiring ? timeToLive.multipliedBy(2) : timeToLive;
+        long baseExpiresAt = expiring ? now + baseTimeToLive.toNanos() : Long.MAX_VALUE;
+        byte[] deltaRecord = toDeltaRecord(baseId, fullCopy(serializedValue.length));
+        getCacheWriter().put(getName(), serializeCacheKey(baseKeyOf(cacheKey)), toBaseRecord(baseId, compressedValue), baseTimeToLive);
+        getCacheWriter().put(getName(), binaryKey, deltaRecord, timeToLive);
+        keepDeltaBase(cacheKey, new DeltaBase(baseId, serializedValue, 0, baseExpiresAt));
+        recordAccess(cacheKey, serializedValue.length, compressedValue.length + deltaRecord.length);
+        return true;
+    }
+
+    private boolean outlivesDelta(DeltaBase base, long now, @Nullable Duration timeToLive) {
+        if (base.expiresAt() == Long.MAX_VALUE) {
+            return true;
+        }
+        return timeToLive != null && timeToLive.isPositive() && base.expiresAt() - now - timeToLive.toNanos() >= 0;
+    }
+
+    /*
+       the base can be evicted or replaced by another writer, read only its header (GETRANGE) to check the id.
+       without an accessible connection the check is skipped and only the local expiry is relied on.
+     */
+    private boolean isBaseInRedis(String cacheKey, long baseId) {
+        if (connectionFactory == null) {
+            return true;
+        }
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            byte[] header = connection.stringCommands().getRange(serializeCacheKey(baseKeyOf(cacheKey)), 0, BASE_RECORD_HEADER_SIZE - 1);
+            return header != null && isBaseRecord(header) && recordBaseId(header) == baseId;
+        }
+    }
+
+    /*
+       local bases are limited by key count and by deltaMaxBaseBytes, keys over the limits are written in full
+     */
+    private boolean canKeepDeltaBase(String cacheKey, int size) {
+        DeltaBase previous = deltaBases.get(cacheKey);
+        long growth = size - (previous != null ? previous.value().length : 0);
+        return (previous != null || deltaBases.size() < deltaMaxBases) && deltaBaseBytes.get() + growth <= deltaMaxBaseBytes;
+    }
+
+    private void keepDeltaBase(String cacheKey, DeltaBase base) {
+        DeltaBase replaced = deltaBases.put(cacheKey, base);
+        deltaBaseBytes.addAndGet(base.value().length - (replaced != null ? replaced.value().length : 0));
+    }
+
+    private boolean dropDeltaBase(String cacheKey) {
+        DeltaBase removed = deltaBases.remove(cacheKey);
+        if (removed != null) {
+            deltaBaseBytes.addAndGet(-removed.value().length);
+        }
+        return removed != null;
+    }
+
+    /*
+       rebuild a delta record from its base, the local base is used when it is the same one.
+       returns null when the base expired or was replaced, the entry is then treated as missing
+     */
+    @Nullable
+    private byte[] decompress(@Nullable String cacheKey, byte[] binaryValue) {
+        return decompress(cacheKey, binaryValue, binaryKey -> getCacheWriter().get(getName(), binaryKey));
+    }
+
+    @Nullable
+    private byte[] decompress(@Nullable String cacheKey, byte[] binaryValue, UnaryOperator<byte[]> baseReader) {
+        if (!isDeltaRecord(binaryValue)) {
+            return decompress(binaryValue);
+        }
+        if (cacheKey == null) {
+            return null;
+        }
+        long baseId = recordBaseId(binaryValue);
+        DeltaBase localBase = deltaBases != null ? deltaBases.get(cacheKey) : null;
+        if (localBase != null && localBase.id() == baseId) {
+            return patch(localBase.value(), recordPayload(binaryValue));
+        }
+        byte[] baseRecord = baseReader.apply(serializeCacheKey(baseKeyOf(cacheKey)));
+        if (baseRecord == null || !isBaseRecord(baseRecord) || recordBaseId(baseRecord) != baseId) {
+            return null;
+        }
+        return patch(decompress(recordPayload(baseRecord)), recordPayload(binaryValue));
+    }
+
+    /*
+       bases live next to the generation counter under <prefix>__base:, outside the keys of the cache (<prefix><key>
+       or <prefix>v<generation>:<key>), so a key of the cache is never mistaken for a base.
+     */
+    private String baseKeyOf(String cacheKey) {
+        return basePrefix() + cacheKey;
+    }
+
+    private String basePrefix() {
+        return delegate.getCacheConfiguration().getKeyPrefixFor(getName()) + "__base:";
     }
 
     /*
@@ -119,6 +487,26 @@ public class CompressingRedisCacheWrapper extends AbstractValueAdaptingCache {
                 .write(value));
     }
 
+    /*
+       gzip the whole value, or split it into blocks compressed in parallel when it exceeds parallelThresholdSize
+     */
+    private byte[] compress(byte[] serialized) {
+        if (parallelThresholdSize > 0 && serialized.length >= parallelThresholdSize) {
+            return compressGzipBlocks(serialized, blockSize);
+        }
+        return compressGzip(serialized);
+    }
+
+    private byte[] decompress(byte[] binaryValue) {
+        if (isCompressedGzipBlocks(binaryValue)) {
+            return decompressGzipBlocks(binaryValue);
+        }
+        if (binaryValue.length >= 2 && isCompressedGzip(binaryValue)) {
+            return decompressGzip(binaryValue);
+        }
+        return binaryValue;
+    }
+
     /*
        origin deserialize
      */
@@ -132,12 +520,26 @@ public class CompressingRedisCacheWrapper extends AbstractValueAdaptingCache {
        deserializeCompressCacheValue
      */
     public <T> T get(Object key, Callable<T> valueLoader) {
-        byte[] binaryKey = createAndConvertCacheKey(key);
+        String cacheKey = createCacheKey(key);
+        LocalCopyGuard localCopyGuard = guardLocalCopy(cacheKey);
+        Object localValue = getLocalCopy(cacheKey, localCopyGuard);
+        if (localValue != null) {
+            return (T) fromStoreValue(localValue);
+        }
+        byte[] binaryKey = serializeCacheKey(cacheKey);
         byte[] binaryValue = getCacheWriter().get(getName(), binaryKey,
-                () -> serializeCompressCacheValue(toStoreValue(loadCacheValue(key, valueLoader))), getTimeToLive(key),
+                () -> serializeCompressCacheValue(cacheKey, toStoreValue(loadCacheValue(key, valueLoader))), getTimeToLive(key),
                 delegate.getCacheConfiguration().isTimeToIdleEnabled());
 
-        ValueWrapper result = toValueWrapper(deserializeCompressCacheValue(binaryValue));
+        Object storeValue = deserializeCompressCacheValue(cacheKey, binaryValue);
+        if (storeValue == null && binaryValue != null && isDeltaRecord(binaryValue)) {
+            // the base of the delta is gone, load and write the value again
+            T value = loadCacheValue(key, valueLoader);
+            put(key, toStoreValue(value));
+            return value;
+        }
+        keepLocalCopy(cacheKey, localCopyGuard, storeValue);
+        ValueWrapper result = toValueWrapper(storeValue);
 
         return result != null ? (T) result.get() : null;
     }
@@ -149,10 +551,6 @@ public class CompressingRedisCacheWrapper extends AbstractValueAdaptingCache {
         return delegate.getCacheConfiguration().getTtlFunction().getTimeToLive(key, value);
     }
 
-    private byte[] createAndConvertCacheKey(Object key) {
-        return serializeCacheKey(createCacheKey(key));
-    }
-
     /**
      * Serialize the given {@link String cache key}.
      *
@@ -171,8 +569,39 @@ public class CompressingRedisCacheWrapper extends AbstractValueAdaptingCache {
      * @return never {@literal null}.
      */
     protected String createCacheKey(Object key) {
-        String convertedKey = convertKey(key);
-        return delegate.getCacheConfiguration().usePrefix() ? prefixCacheKey(convertedKey) : convertedKey;
+        return getKeyNamespace() + convertKey(key);
+    }
+
+    /**
+     * Return the prefix every key of this cache starts with, including the current generation
+     * when the generation namespace is enabled.
+     *
+     * @return never {@literal null}.
+     */
+    public String getKeyNamespace() {
+        return generationNamespace ? namespaceOf(currentGeneration()) : prefixCacheKey("");
+    }
+
+    private String namespaceOf(long generation) {
+        return prefixCacheKey("v" + generation + ":");
+    }
+
+    private long currentGeneration() {
+        long now = System.nanoTime();
+        if (generation < 0 || now - generationLoadedAt >= generationRefreshNanos) {
+            generation = loadGeneration();
+            generationLoadedAt = now;
+        }
+        return generation;
+    }
+
+    private long loadGeneration() {
+        byte[] value = getCacheWriter().get(getName(), serializeCacheKey(generationKey()));
+        return value != null ? Long.parseLong(new String(value, StandardCharsets.UTF_8)) : 0;
+    }
+
+    private String generationKey() {
+        return delegate.getCacheConfiguration().getKeyPrefixFor(getName()) + "__generation";
     }
 
     /**
@@ -232,6 +661,9 @@ public class CompressingRedisCacheWrapper extends AbstractValueAdaptingCache {
     }
 
     private String prefixCacheKey(String key) {
+        if (!delegate.getCacheConfiguration().usePrefix()) {
+            return key;
+        }
         // allow contextual cache names by computing the key prefix on every call.
         return delegate.getCacheConfiguration().getKeyPrefixFor(getName()) + key;
     }
@@ -295,13 +727,26 @@ public class CompressingRedisCacheWrapper extends AbstractValueAdaptingCache {
      * origin serializeCacheValue -> add compression process ->  serializeCompressCacheValue
      */
     protected byte[] serializeCompressCacheValue(Object value) {
+        return serializeCompressCacheValue(null, value);
+    }
+
+    /**
+     * Serialize the {@link Object value} like {@link #serializeCompressCacheValue(Object)} and record the access
+     * of {@code cacheKey} in the hot key sketch.
+     *
+     * @param cacheKey {@link String cache key} the value is written to; {@literal null} skips recording.
+     * @param value {@link Object} to serialize and cache; must not be {@literal null}.
+     * @return an array of bytes from the serialized {@link Object value}; never {@literal null}.
+     */
+    protected byte[] serializeCompressCacheValue(@Nullable String cacheKey, Object value) {
         if (isAllowNullValues() && value instanceof NullValue) {
             return BINARY_NULL_VALUE;
         }
         //byte[] serialized = ByteUtils.getBytes(delegate.getCacheConfiguration().getValueSerializationPair().write(value));
         byte[] serialized = serialize((Serializable) value);
-
-        return compressGzip(serialized);
+        byte[] compressed = compress(serialized);
+        recordAccess(cacheKey, serialized.length, compressed.length);
+        return compressed;
     }
 
     /**
@@ -315,11 +760,28 @@ public class CompressingRedisCacheWrapper extends AbstractValueAdaptingCache {
      */
     @Nullable
     protected Object deserializeCompressCacheValue(byte[] value) {
+        return deserializeCompressCacheValue(null, value);
+    }
+
+    /**
+     * Deserialize the given the array of bytes like {@link #deserializeCompressCacheValue(byte[])} and record the
+     * access of {@code cacheKey} in the hot key sketch.
+     *
+     * @param cacheKey {@link String cache key} the value is read from; {@literal null} skips recording.
+     * @param value array of bytes to deserialize; must not be {@literal null}.
+     * @return an {@link Object} deserialized from the array of bytes; can be {@literal null}.
+     */
+    @Nullable
+    protected Object deserializeCompressCacheValue(@Nullable String cacheKey, byte[] value) {
 
         if (isAllowNullValues() && ObjectUtils.nullSafeEquals(value, BINARY_NULL_VALUE)) {
             return NullValue.INSTANCE;
         }
-        byte[] decompressedValue = decompressGzip(value);
+        byte[] decompressedValue = decompress(cacheKey, value);
+        if (decompressedValue == null) {
+            return null;
+        }
+        recordAccess(cacheKey, decompressedValue.length, value.length);
         return deserialize(decompressedValue);
     }
 
@@ -342,13 +804,21 @@ public class CompressingRedisCacheWrapper extends AbstractValueAdaptingCache {
 
     protected Object lookup(Object key) {
 
-        byte[] binaryKey = createAndConvertCacheKey(key);
+        String cacheKey = createCacheKey(key);
+        LocalCopyGuard localCopyGuard = guardLocalCopy(cacheKey);
+        Object localValue = getLocalCopy(cacheKey, localCopyGuard);
+        if (localValue != null) {
+            return localValue;
+        }
+        byte[] binaryKey = serializeCacheKey(cacheKey);
 
         byte[] binaryValue = delegate.getCacheConfiguration().isTimeToIdleEnabled()
                 ? getCacheWriter().get(getName(), binaryKey, getTimeToLive(key))
                 : getCacheWriter().get(getName(), binaryKey);
 
-        return binaryValue != null ? deserializeCompressCacheValue(binaryValue) : null;
+        Object storeValue = binaryValue != null ? deserializeCompressCacheValue(cacheKey, binaryValue) : null;
+        keepLocalCopy(cacheKey, localCopyGuard, storeValue);
+        return storeValue;
     }
 
     @Override
@@ -363,12 +833,13 @@ public class CompressingRedisCacheWrapper extends AbstractValueAdaptingCache {
 
     private CompletableFuture<ValueWrapper> retrieveValue(Object key) {
 
+        String cacheKey = createCacheKey(key);
         CompletableFuture<byte[]> retrieve = delegate.getCacheConfiguration().isTimeToIdleEnabled()
-                ? getCacheWriter().retrieve(getName(), createAndConvertCacheKey(key), getTimeToLive(key))
-                : getCacheWriter().retrieve(getName(), createAndConvertCacheKey(key));
+                ? getCacheWriter().retrieve(getName(), serializeCacheKey(cacheKey), getTimeToLive(key))
+                : getCacheWriter().retrieve(getName(), serializeCacheKey(cacheKey));
 
         return retrieve //
-                .thenApply(binaryValue -> binaryValue != null ? deserializeCompressCacheValue(binaryValue) : null) //
+                .thenApply(binaryValue -> binaryValue != null ? deserializeCompressCacheValue(cacheKey, binaryValue) : null) //
                 .thenApply(this::toValueWrapper);
     }
 
@@ -386,12 +857,16 @@ public class CompressingRedisCacheWrapper extends AbstractValueAdaptingCache {
 
                 Object cacheValue = processAndCheckValue(value);
 
-                byte[] binaryKey = createAndConvertCacheKey(key);
-                byte[] binaryValue = serializeCompressCacheValue(cacheValue);
+                String cacheKey = createCacheKey(key);
+                byte[] binaryKey = serializeCacheKey(cacheKey);
+                byte[] binaryValue = serializeCompressCacheValue(cacheKey, cacheValue);
 
                 Duration timeToLive = getTimeToLive(key, cacheValue);
 
-                return getCacheWriter().store(getName(), binaryKey, binaryValue, timeToLive).thenApply(v -> value);
+                return getCacheWriter().store(getName(), binaryKey, binaryValue, timeToLive).thenApply(v -> {
+                    invalidateLocalCopy(cacheKey);
+                    return value;
+                });
             });
         });
     }
@@ -462,10 +937,240 @@ public class CompressingRedisCacheWrapper extends AbstractValueAdaptingCache {
 
         Duration timeToLive = getTimeToLive(key, value);
 
-        byte[] binaryKey = createAndConvertCacheKey(key);
-        byte[] binaryValue = serializeCompressCacheValue(cacheValue);
+        String cacheKey = createCacheKey(key);
+        byte[] binaryKey = serializeCacheKey(cacheKey);
+        byte[] binaryValue = serializeCompressCacheValue(cacheKey, cacheValue);
         byte[] result = getCacheWriter().putIfAbsent(getName(), binaryKey, binaryValue, timeToLive);
+        invalidateLocalCopy(cacheKey);
+
+        return result != null ? new SimpleValueWrapper(fromStoreValue(deserializeCompressCacheValue(cacheKey, result))) : null;
+    }
+
+    /**
+     * Return up to {@code limit} hot keys of this cache ordered by estimated accesses.
+     *
+     * @param limit maximum number of keys to return.
+     * @return the hot keys; empty when hot key tracking is disabled.
+     */
+    public List<HotKey> getHotKeys(int limit) {
+        return hotKeySketch != null ? hotKeySketch.topKeys(limit) : List.of();
+    }
+
+    /**
+     * Return the hot key sketch of this cache.
+     *
+     * @return {@literal null} when hot key tracking is disabled.
+     */
+    @Nullable
+    public HotKeySketch getHotKeySketch() {
+        return hotKeySketch;
+    }
+
+    /**
+     * Read the value stored in redis for {@code cacheKey} as is, without recording an access. The value is read with
+     * GET on the connection of the cache writer so {@link #getStatistics() cache statistics} are not touched; when the
+     * cache writer does not expose its connection it is read through the cache writer and counted as a hit or miss.
+     *
+     * @param cacheKey full {@link String cache key} including {@link #getKeyNamespace()}.
+     * @return the stored (compressed) value; {@literal null} if the key is missing.
+     */
+    @Nullable
+    public byte[] getStoredValue(String cacheKey) {
+        return readStoredValue(serializeCacheKey(cacheKey));
+    }
+
+    /**
+     * Decode a value returned by {@link #getStoredValue(String)} to the value written by the configured serializer.
+     * The base of a delta is read like {@link #getStoredValue(String)}.
+     *
+     * @param cacheKey full {@link String cache key} the value was read from.
+     * @param storedValue the stored value; must not be {@literal null}.
+     * @return the serialized value; {@literal null} if it is a delta whose base is gone.
+     */
+    @Nullable
+    public byte[] toSerializedValue(String cacheKey, byte[] storedValue) {
+        return decompress(cacheKey, storedValue, this::readStoredValue);
+    }
+
+    @Nullable
+    private byte[] readStoredValue(byte[] binaryKey) {
+        if (connectionFactory == null) {
+            return getCacheWriter().get(getName(), binaryKey);
+        }
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            return connection.stringCommands().get(binaryKey);
+        }
+    }
+
+    /**
+     * Return whether the keys of this cache can be scanned, which needs the connection of the cache writer.
+     *
+     * @return {@literal false} when the cache writer does not expose its connection.
+     */
+    public boolean isScanSupported() {
+        return connectionFactory != null;
+    }
+
+    /**
+     * Incrementally SCAN keys through the connection of the cache writer and pass the keys of the current key namespace
+     * to {@code action}, internal keys are skipped. SCAN runs without MATCH so a page never walks more than
+     * {@code SCAN_BATCH_SIZE} keys, every visited key counts against {@code maxScannedKeys}, including keys of other
+     * caches, and the scan pauses for {@code pageDelay} after every page.
+     *
+     * @param maxScannedKeys maximum number of keys to visit.
+     * @param pageDelay pause after every page of visited keys.
+     * @param action called with every full {@link String cache key}; return {@literal false} to stop the scan.
+     * @return {@literal true} if every key was visited.
+     * @throws IllegalStateException if {@link #isScanSupported()} is {@literal false} or the key namespace is empty,
+     * the keys of the cache can then not be told apart from other keys.
+     */
+    public boolean scanKeys(long maxScannedKeys, Duration pageDelay, Predicate<String> action) {
+        if (connectionFactory == null) {
+            throw new IllegalStateException("The cache writer of cache '%s' does not expose its connection".formatted(getName()));
+        }
+        String keyNamespace = getKeyNamespace();
+        if (keyNamespace.isEmpty()) {
+            throw new IllegalStateException("Cache '%s' has no key prefix".formatted(getName()));
+        }
+        ScanOptions scanOptions = ScanOptions.scanOptions()
+                                             .count(SCAN_BATCH_SIZE)
+                                             .build();
+        long scanned = 0;
+        try (RedisConnection connection = connectionFactory.getConnection();
+             Cursor<byte[]> cursor = connection.keyCommands().scan(scanOptions)) {
+            while (cursor.hasNext()) {
+                if (scanned >= maxScannedKeys) {
+                    return false;
+                }
+                String cacheKey = deserializeCacheKey(cursor.next());
+                scanned++;
+                if (cacheKey != null && cacheKey.startsWith(keyNamespace) && !isInternalKey(cacheKey)
+                        && !action.test(cacheKey)) {
+                    return false;
+                }
+                if (scanned % SCAN_BATCH_SIZE == 0 && !pause(pageDelay)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    @Nullable
+    private String deserializeCacheKey(byte[] binaryKey) {
+        try {
+            return delegate.getCacheConfiguration().getKeySerializationPair().read(ByteBuffer.wrap(binaryKey));
+        } catch (SerializationException ex) {
+            // a key of something else than this cache
+            return null;
+        }
+    }
+
+    private static boolean pause(Duration delay) {
+        if (!delay.isPositive()) {
+            return !Thread.currentThread().isInterrupted();
+        }
+        try {
+            Thread.sleep(delay.toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Return whether {@code cacheKey} is an internal key of this wrapper (generation counter, delta base).
+     */
+    public boolean isInternalKey(String cacheKey) {
+        return cacheKey.equals(generationKey()) || cacheKey.startsWith(basePrefix());
+    }
+
+    private void recordAccess(@Nullable String cacheKey, int rawSize, int storedSize) {
+        if (hotKeySketch != null && cacheKey != null) {
+            hotKeySketch.record(cacheKey, rawSize, storedSize);
+        }
+    }
+
+    /*
+       local copies are only served for hot keys and only until hotKeyLocalTtl has passed, the map only holds copies
+       of hot keys. a write bumps the striped write stamp of its key after writing redis and drops the copy, a reader
+       only keeps its copy when neither that stamp nor the clear epoch changed since it started reading redis,
+       so a value read before a concurrent write or clear() is never kept. unrelated keys sharing a stripe only
+       cause a copy to be skipped.
+     */
+    @Nullable
+    private LocalCopyGuard guardLocalCopy(String cacheKey) {
+        return localCopies != null
+                ? new LocalCopyGuard(localCopyWriteStamps.get(stripeOf(cacheKey)), localCopyClearEpoch.get())
+                : null;
+    }
+
+    @Nullable
+    private Object getLocalCopy(String cacheKey, @Nullable LocalCopyGuard guard) {
+        if (guard == null) {
+            return null;
+        }
+        LocalCopy localCopy = localCopies.get(cacheKey);
+        if (localCopy == null) {
+            return null;
+        }
+        if (localCopy.isExpired(System.nanoTime())) {
+            localCopies.remove(cacheKey, localCopy);
+            return null;
+        }
+        // keep the key hot while it is served locally, no bytes are transferred from redis
+        recordAccess(cacheKey, 0, 0);
+        return localCopy.value();
+    }
 
-        return result != null ? new SimpleValueWrapper(fromStoreValue(deserializeCompressCacheValue(result))) : null;
+    private void keepLocalCopy(String cacheKey, @Nullable LocalCopyGuard guard, @Nullable Object storeValue) {
+        if (guard == null || storeValue == null || !hotKeySketch.isHot(cacheKey)) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (!localCopies.containsKey(cacheKey) && localCopies.size() >= hotKeyTopK) {
+            localCopies.entrySet().removeIf(entry -> entry.getValue().isExpired(now) || !hotKeySketch.isHot(entry.getKey()));
+            if (localCopies.size() >= hotKeyTopK) {
+                return;
+            }
+        }
+        LocalCopy localCopy = new LocalCopy(storeValue, now + hotKeyLocalTtlNanos);
+        localCopies.put(cacheKey, localCopy);
+        if (localCopyWriteStamps.get(stripeOf(cacheKey)) != guard.writeStamp()
+                || localCopyClearEpoch.get() != guard.clearEpoch()) {
+            localCopies.remove(cacheKey, localCopy);
+        }
+    }
+
+    private void invalidateLocalCopy(String cacheKey) {
+        if (localCopies != null) {
+            localCopyWriteStamps.incrementAndGet(stripeOf(cacheKey));
+            localCopies.remove(cacheKey);
+        }
+    }
+
+    private void clearLocalCopies() {
+        if (localCopies != null) {
+            localCopyClearEpoch.incrementAndGet();
+            localCopies.clear();
+        }
+    }
+
+    private static int stripeOf(String cacheKey) {
+        int hash = cacheKey.hashCode();
+        return (hash ^ (hash >>> 16)) & (LOCAL_COPY_STRIPES - 1);
+    }
+
+    private record DeltaBase(long id, byte[] value, int writes, long expiresAt) {
+    }
+
+    private record LocalCopyGuard(long writeStamp, long clearEpoch) {
+    }
+
+    private record LocalCopy(Object value, long expiresAt) {
+        boolean isExpired(long now) {
+            return now - expiresAt >= 0;
+        }
     }
 }
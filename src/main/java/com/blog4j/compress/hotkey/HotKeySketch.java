@@ -0,0 +1,189 @@
+package com.blog4j.compress.hotkey;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free, fixed memory heavy hitters sketch of cache key accesses.
+ * <p>
+ * A Count-Min sketch estimates accesses, raw (serialized) bytes and stored (compressed) bytes per key,
+ * and the {@code topK} keys with the highest estimated accesses are kept as heavy hitters. A key is only a heavy
+ * hitter while it has at least {@code minShare} of the accesses of the current window (and at least 2 accesses).
+ * All counters are halved every {@code agingInterval} accesses so the heavy hitters follow current traffic,
+ * keys that decay below the minimum are dropped.
+ */
+public class HotKeySketch {
+    private static final int DEPTH = 4;
+    private static final long MIN_HOT_ACCESSES = 2;
+
+    private final int width;
+    private final int topK;
+    private final long agingInterval;
+    private final double minShare;
+    private final AtomicLongArray accesses;
+    private final AtomicLongArray rawBytes;
+    private final AtomicLongArray storedBytes;
+    private final Map<String, HotKey> heavyHitters = new ConcurrentHashMap<>();
+    private final AtomicLong accessesSinceAging = new AtomicLong();
+    // accesses of the current window, halved together with the counters
+    private final AtomicLong windowAccesses = new AtomicLong();
+
+    private final LongAdder totalAccesses = new LongAdder();
+    private final LongAdder totalRawBytes = new LongAdder();
+    private final LongAdder totalStoredBytes = new LongAdder();
+
+    public HotKeySketch(int width, int topK, long agingInterval, double minShare) {
+        if (width <= 0 || topK <= 0) {
+            throw new IllegalArgumentException("width and topK must be positive");
+        }
+        // round up to a power of two so a row index is a simple mask
+        int capacity = 1;
+        while (capacity < width) {
+            capacity <<= 1;
+        }
+        this.width = capacity;
+        this.topK = topK;
+        this.agingInterval = agingInterval;
+        this.minShare = minShare;
+        this.accesses = new AtomicLongArray(DEPTH * this.width);
+        this.rawBytes = new AtomicLongArray(DEPTH * this.width);
+        this.storedBytes = new AtomicLongArray(DEPTH * this.width);
+    }
+
+    /**
+     * Record one access of {@code key}.
+     *
+     * @param key cache key; must not be {@literal null}.
+     * @param rawSize size of the serialized value before compression.
+     * @param storedSize size of the value transferred to / from redis.
+     */
+    public void record(String key, long rawSize, long storedSize) {
+        totalAccesses.increment();
+        totalRawBytes.add(rawSize);
+        totalStoredBytes.add(storedSize);
+        windowAccesses.incrementAndGet();
+
+        long estimatedAccesses = Long.MAX_VALUE;
+        long estimatedRawBytes = Long.MAX_VALUE;
+        long estimatedStoredBytes = Long.MAX_VALUE;
+        int hash1 = spread(key.hashCode());
+        int hash2 = spread(hash1 ^ 0x9e3779b9) | 1;
+        for (int row = 0; row < DEPTH; row++) {
+            int index = row * width + ((hash1 + row * hash2) & (width - 1));
+            estimatedAccesses = Math.min(estimatedAccesses, accesses.incrementAndGet(index));
+            estimatedRawBytes = Math.min(estimatedRawBytes, rawBytes.addAndGet(index, rawSize));
+            estimatedStoredBytes = Math.min(estimatedStoredBytes, storedBytes.addAndGet(index, storedSize));
+        }
+        offer(new HotKey(key, estimatedAccesses, estimatedRawBytes, estimatedStoredBytes));
+
+        if (agingInterval > 0 && accessesSinceAging.incrementAndGet() >= agingInterval) {
+            accessesSinceAging.set(0);
+            age();
+        }
+    }
+
+    /**
+     * Return whether {@code key} is currently one of the heavy hitters.
+     */
+    public boolean isHot(String key) {
+        HotKey hotKey = heavyHitters.get(key);
+        return hotKey != null && hotKey.accesses() >= hotThreshold();
+    }
+
+    /**
+     * Return up to {@code n} heavy hitters ordered by estimated accesses, highest first.
+     */
+    public List<HotKey> topKeys(int n) {
+        return heavyHitters.values().stream()
+                           .sorted(Comparator.comparingLong(HotKey::accesses).reversed())
+                           .limit(n)
+                           .toList();
+    }
+
+    public long getTotalAccesses() {
+        return totalAccesses.sum();
+    }
+
+    public long getTotalRawBytes() {
+        return totalRawBytes.sum();
+    }
+
+    public long getTotalStoredBytes() {
+        return totalStoredBytes.sum();
+    }
+
+    /**
+     * Forget all recorded accesses and heavy hitters. Totals are kept.
+     */
+    public void reset() {
+        for (int i = 0; i < accesses.length(); i++) {
+            accesses.set(i, 0);
+            rawBytes.set(i, 0);
+            storedBytes.set(i, 0);
+        }
+        heavyHitters.clear();
+        windowAccesses.set(0);
+    }
+
+    private void offer(HotKey candidate) {
+        if (candidate.accesses() < hotThreshold()) {
+            heavyHitters.remove(candidate.key());
+            return;
+        }
+        if (heavyHitters.containsKey(candidate.key()) || heavyHitters.size() < topK) {
+            heavyHitters.put(candidate.key(), candidate);
+            return;
+        }
+        HotKey coldest = coldest();
+        if (coldest != null && candidate.accesses() > coldest.accesses()
+                && heavyHitters.remove(coldest.key(), coldest)) {
+            heavyHitters.put(candidate.key(), candidate);
+        }
+    }
+
+    private HotKey coldest() {
+        HotKey coldest = null;
+        for (HotKey hotKey : heavyHitters.values()) {
+            if (coldest == null || hotKey.accesses() < coldest.accesses()) {
+                coldest = hotKey;
+            }
+        }
+        return coldest;
+    }
+
+    private void age() {
+        for (int i = 0; i < accesses.length(); i++) {
+            accesses.getAndUpdate(i, value -> value >> 1);
+            rawBytes.getAndUpdate(i, value -> value >> 1);
+            storedBytes.getAndUpdate(i, value -> value >> 1);
+        }
+        windowAccesses.getAndUpdate(value -> value >> 1);
+        heavyHitters.replaceAll((key, hotKey) -> new HotKey(key, hotKey.accesses() >> 1,
+                hotKey.rawBytes() >> 1, hotKey.storedBytes() >> 1));
+        long threshold = hotThreshold();
+        heavyHitters.values().removeIf(hotKey -> hotKey.accesses() < threshold);
+    }
+
+    private long hotThreshold() {
+        return Math.max(MIN_HOT_ACCESSES, (long) Math.ceil(minShare * windowAccesses.get()));
+    }
+
+    private static int spread(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Estimated accesses and transferred bytes of a heavy hitter.
+     */
+    public record HotKey(String key, long accesses, long rawBytes, long storedBytes) {
+    }
+}
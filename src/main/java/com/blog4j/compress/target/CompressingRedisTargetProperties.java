@@ -1,5 +1,6 @@
 package com.blog4j.compress.target;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import lombok.Getter;
@@ -20,6 +21,78 @@ public class CompressingRedisTargetProperties {
 
     private long thresholdSize = 10;
 
+    /*
+        values larger than parallelThresholdSize (byte) are split into blocks of blockSize (byte)
+        and compressed / decompressed in parallel. 0 or less disables the block mode.
+        disabled by default: instances without block support cannot read block values,
+        enable it only after every instance reading the cache has been upgraded.
+     */
+    private long parallelThresholdSize = 0;
+
+    private int blockSize = 256 * 1024;
+
+    /*
+        generationNamespace folds a per-cache generation counter stored in redis into the key prefix.
+        clear() only increments the counter (INCR, or GET + SET when the cache writer does not expose its connection),
+        entries of old generations are left to their TTL or removed in the background when sweepStaleGenerations is enabled.
+        caches without a TTL always sweep, their old generations would never be removed otherwise.
+        the counter is cached locally and reloaded every generationRefreshInterval.
+     */
+    private boolean generationNamespace = false;
+
+    private Duration generationRefreshInterval = Duration.ofSeconds(1);
+
+    private boolean sweepStaleGenerations = false;
+
+    /*
+        hotKeyTracking keeps a fixed memory Count-Min / Top-K sketch of key accesses and transferred bytes per cache.
+        hotKeyTopK keys are reported, counters are halved every hotKeyAgingInterval accesses.
+        a key is only hot while it has at least hotKeyMinShare of the accesses of the current window.
+        hotKeyLocalTtl greater than 0 keeps the value of a detected hot key in a local copy for that long.
+     */
+    private boolean hotKeyTracking = false;
+
+    private int hotKeyTopK = 32;
+
+    private int hotKeySketchWidth = 1024;
+
+    private long hotKeyAgingInterval = 100_000;
+
+    private double hotKeyMinShare = 0.01;
+
+    private Duration hotKeyLocalTtl = Duration.ZERO;
+
+    /*
+        caches in deltaCaches write only a binary diff against the last full value (base) written by this instance
+        when the diff is at most deltaMaxRatio of the value. every deltaFullWriteInterval writes a new base is written
+        and the entry only points at it. bases of at most deltaMaxBases keys and deltaMaxBaseBytes bytes are kept locally,
+        keys over the limits are written in full without a base.
+     */
+    private List<String> deltaCaches = new ArrayList<>();
+
+    private int deltaFullWriteInterval = 20;
+
+    private double deltaMaxRatio = 0.5;
+
+    private int deltaMaxBases = 10_000;
+
+    private long deltaMaxBaseBytes = 64L * 1024 * 1024;
+
+    /*
+        codec analyzer (actuator compressinganalyzer) samples at most analyzerSampleSize keys per cache. SCAN visits at most
+        analyzerMaxScanKeys keys of the database per cache and pauses analyzerScanPageDelay after every page of 100 keys.
+        it waits analyzerKeyDelay between reads and runs at most once per analyzerMinInterval.
+     */
+    private int analyzerSampleSize = 100;
+
+    private int analyzerMaxScanKeys = 10_000;
+
+    private Duration analyzerScanPageDelay = Duration.ofMillis(10);
+
+    private Duration analyzerKeyDelay = Duration.ofMillis(2);
+
+    private Duration analyzerMinInterval = Duration.ofMinutes(1);
+
     private String host = "127.0.0.1";
 
     private int port = 6379;
@@ -0,0 +1,97 @@
+package com.blog4j.compress;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.SerializationException;
+
+class CompressingUtilsTests {
+
+	private static final int BLOCK_SIZE = 1024;
+
+	@Test
+	void blocksRoundTripEmptyInput() {
+		byte[] compressed = CompressingUtils.compressGzipBlocks(new byte[0], BLOCK_SIZE);
+
+		assertTrue(CompressingUtils.isCompressedGzipBlocks(compressed));
+		assertArrayEquals(new byte[0], CompressingUtils.decompressGzipBlocks(compressed));
+	}
+
+	@Test
+	void blocksRoundTripInputOfExactlyBlockSize() {
+		byte[] data = randomBytes(BLOCK_SIZE);
+		byte[] compressed = CompressingUtils.compressGzipBlocks(data, BLOCK_SIZE);
+
+		assertArrayEquals(data, CompressingUtils.decompressGzipBlocks(compressed));
+		assertEquals(1, ByteBuffer.wrap(compressed).getInt(12));
+	}
+
+	@Test
+	void blocksRoundTripMultipleBlocksWithPartialLastBlock() {
+		byte[] data = randomBytes(BLOCK_SIZE * 3 + 17);
+
+		assertArrayEquals(data, CompressingUtils.decompressGzipBlocks(CompressingUtils.compressGzipBlocks(data, BLOCK_SIZE)));
+	}
+
+	@Test
+	void gzipValueIsNotTakenForBlocks() {
+		assertFalse(CompressingUtils.isCompressedGzipBlocks(CompressingUtils.compressGzip(randomBytes(BLOCK_SIZE))));
+		assertThrows(SerializationException.class,
+				() -> CompressingUtils.decompressGzipBlocks(CompressingUtils.compressGzip(randomBytes(BLOCK_SIZE))));
+	}
+
+	@Test
+	void corruptBlockCountIsRejected() {
+		byte[] compressed = CompressingUtils.compressGzipBlocks(randomBytes(BLOCK_SIZE * 2), BLOCK_SIZE);
+		ByteBuffer.wrap(compressed).putInt(12, 1);
+
+		assertThrows(SerializationException.class, () -> CompressingUtils.decompressGzipBlocks(compressed));
+	}
+
+	@Test
+	void corruptOriginalLengthIsRejected() {
+		byte[] compressed = CompressingUtils.compressGzipBlocks(randomBytes(BLOCK_SIZE * 2), BLOCK_SIZE);
+		ByteBuffer.wrap(compressed).putInt(4, BLOCK_SIZE * 2 - 1);
+
+		assertThrows(SerializationException.class, () -> CompressingUtils.decompressGzipBlocks(compressed));
+	}
+
+	@Test
+	void corruptBlockIndexIsRejected() {
+		byte[] compressed = CompressingUtils.compressGzipBlocks(randomBytes(BLOCK_SIZE * 2), BLOCK_SIZE);
+		ByteBuffer buffer = ByteBuffer.wrap(compressed);
+		buffer.putInt(16, buffer.getInt(16) + 1);
+
+		assertThrows(SerializationException.class, () -> CompressingUtils.decompressGzipBlocks(compressed));
+	}
+
+	@Test
+	void corruptBlockTrailerIsRejected() {
+		byte[] compressed = CompressingUtils.compressGzipBlocks(randomBytes(BLOCK_SIZE * 2), BLOCK_SIZE);
+		compressed[compressed.length - 5] ^= 0x01;
+
+		assertThrows(SerializationException.class, () -> CompressingUtils.decompressGzipBlocks(compressed));
+	}
+
+	@Test
+	void truncatedHeaderIsRejected() {
+		byte[] compressed = CompressingUtils.compressGzipBlocks(randomBytes(BLOCK_SIZE), BLOCK_SIZE);
+		byte[] truncated = new byte[10];
+		System.arraycopy(compressed, 0, truncated, 0, truncated.length);
+
+		assertThrows(SerializationException.class, () -> CompressingUtils.decompressGzipBlocks(truncated));
+	}
+
+	private static byte[] randomBytes(int length) {
+		byte[] data = new byte[length];
+		new Random(length).nextBytes(data);
+		return data;
+	}
+
+}
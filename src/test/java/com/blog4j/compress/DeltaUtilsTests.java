@@ -0,0 +1,109 @@
+package com.blog4j.compress;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.SerializationException;
+
+class DeltaUtilsTests {
+
+	@Test
+	void roundTripValuesShorterThanMatchBlock() {
+		byte[] base = bytes("short");
+		byte[] target = bytes("shorter");
+
+		assertArrayEquals(target, DeltaUtils.patch(base, DeltaUtils.diff(base, target)));
+		assertArrayEquals(new byte[0], DeltaUtils.patch(base, DeltaUtils.diff(base, new byte[0])));
+	}
+
+	@Test
+	void roundTripTargetLongerThanShortBase() {
+		byte[] base = bytes("short");
+		byte[] target = bytes("a target much longer than a single match block");
+
+		assertArrayEquals(target, DeltaUtils.patch(base, DeltaUtils.diff(base, target)));
+	}
+
+	@Test
+	void roundTripEditedValue() {
+		byte[] base = bytes("{\"id\":1,\"name\":\"cache\",\"tags\":[\"a\",\"b\",\"c\"],\"description\":\"a value rewritten often\"}");
+		byte[] target = bytes("{\"id\":1,\"name\":\"cache\",\"tags\":[\"a\",\"b\",\"c\",\"d\"],\"description\":\"a value rewritten often\"}");
+		byte[] delta = DeltaUtils.diff(base, target);
+
+		assertArrayEquals(target, DeltaUtils.patch(base, delta));
+		assertTrue(delta.length < target.length / 2);
+	}
+
+	@Test
+	void matchIsExtendedBackwardsIntoLiteral() {
+		byte[] base = new byte[32];
+		for (int i = 0; i < base.length; i++) {
+			base[i] = (byte) ('A' + i);
+		}
+		// base[5..32) is only found at the indexed block base[16..32) and has to be extended backwards
+		byte[] target = new byte[29];
+		target[0] = 'z';
+		target[1] = 'z';
+		System.arraycopy(base, 5, target, 2, 27);
+
+		byte[] delta = DeltaUtils.diff(base, target);
+
+		// [length 29][INSERT 2 "zz"][COPY offset 5 length 27]
+		assertArrayEquals(new byte[] {29, 1, 2, 'z', 'z', 0, 5, 27}, delta);
+		assertArrayEquals(target, DeltaUtils.patch(base, delta));
+	}
+
+	@Test
+	void fullCopyRebuildsBase() {
+		byte[] base = bytes("a base value longer than a single match block");
+
+		assertArrayEquals(base, DeltaUtils.patch(base, DeltaUtils.fullCopy(base.length)));
+		assertArrayEquals(new byte[0], DeltaUtils.patch(new byte[0], DeltaUtils.fullCopy(0)));
+		assertTrue(DeltaUtils.fullCopy(base.length).length < 8);
+	}
+
+	@Test
+	void corruptDeltaIsRejected() {
+		byte[] base = bytes("0123456789abcdef0123456789abcdef");
+		byte[] delta = DeltaUtils.diff(base, bytes("0123456789abcdef0123456789abcdef!"));
+
+		assertThrows(SerializationException.class, () -> DeltaUtils.patch(base, Arrays.copyOf(delta, delta.length - 1)));
+		assertThrows(SerializationException.class, () -> DeltaUtils.patch(bytes("0123"), delta));
+		assertThrows(SerializationException.class, () -> DeltaUtils.patch(base, new byte[] {1, 7}));
+	}
+
+	@Test
+	void recordsKeepBaseIdAndPayload() {
+		byte[] payload = bytes("payload");
+		byte[] deltaRecord = DeltaUtils.toDeltaRecord(42L, payload);
+		byte[] baseRecord = DeltaUtils.toBaseRecord(-1L, payload);
+
+		assertTrue(DeltaUtils.isDeltaRecord(deltaRecord));
+		assertFalse(DeltaUtils.isBaseRecord(deltaRecord));
+		assertTrue(DeltaUtils.isBaseRecord(baseRecord));
+		assertFalse(DeltaUtils.isDeltaRecord(baseRecord));
+		assertEquals(42L, DeltaUtils.recordBaseId(deltaRecord));
+		assertEquals(-1L, DeltaUtils.recordBaseId(baseRecord));
+		assertArrayEquals(payload, DeltaUtils.recordPayload(deltaRecord));
+		assertArrayEquals(new byte[0], DeltaUtils.recordPayload(DeltaUtils.toBaseRecord(7L, new byte[0])));
+	}
+
+	@Test
+	void plainValuesAreNotRecords() {
+		assertFalse(DeltaUtils.isDeltaRecord(null));
+		assertFalse(DeltaUtils.isDeltaRecord(Arrays.copyOf(DeltaUtils.toDeltaRecord(1L, new byte[0]), 11)));
+		assertFalse(DeltaUtils.isDeltaRecord(CompressingUtils.compressGzip(bytes("a plain gzip value"))));
+		assertFalse(DeltaUtils.isBaseRecord(bytes("a plain serialized value")));
+	}
+
+	private static byte[] bytes(String value) {
+		return value.getBytes(StandardCharsets.UTF_8);
+	}
+
+}
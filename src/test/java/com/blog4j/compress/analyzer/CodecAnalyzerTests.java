@@ -0,0 +1,147 @@
+package com.blog4j.compress.analyzer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import com.blog4j.compress.analyzer.CodecAnalyzer.AnalysisReport;
+import com.blog4j.compress.analyzer.CodecAnalyzer.CacheReport;
+import com.blog4j.compress.analyzer.CodecAnalyzer.CodecResult;
+import com.blog4j.compress.analyzer.CodecAnalyzer.Recommendation;
+import com.blog4j.compress.decorator.CompressingRedisCacheWrapper;
+import com.blog4j.compress.decorator.InMemoryCacheWriter;
+import com.blog4j.compress.target.CompressingRedisTargetProperties;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+
+class CodecAnalyzerTests {
+
+	@Test
+	void scanSamplesAtMostSampleSizeKeys() {
+		InMemoryCacheWriter writer = InMemoryCacheWriter.create().withConnection();
+		CompressingRedisCacheWrapper cache = writer.wrap("test", analyzerProperties());
+		for (int i = 0; i < 50; i++) {
+			cache.put("key-" + i, "value-" + i);
+		}
+
+		AnalysisReport report = new CodecAnalyzer(analyzerProperties()).analyze(List.of(cache), 10);
+
+		CacheReport cacheReport = report.caches().get(0);
+		assertEquals("ok", report.status());
+		assertEquals("sampled by SCAN", cacheReport.status());
+		assertEquals(50, cacheReport.scannedKeys());
+		assertTrue(cacheReport.scanComplete());
+		assertEquals(10, cacheReport.sampledKeys());
+	}
+
+	@Test
+	void scanStopsAfterMaxScanKeysVisitedKeys() {
+		CompressingRedisTargetProperties properties = analyzerProperties();
+		properties.setAnalyzerMaxScanKeys(100);
+		InMemoryCacheWriter writer = InMemoryCacheWriter.create().withConnection();
+		CompressingRedisCacheWrapper cache = writer.wrap("test", properties);
+		for (int i = 0; i < 300; i++) {
+			writer.entries().put("other::key-" + i, new byte[0]);
+		}
+		cache.put("key", "value");
+
+		CacheReport cacheReport = new CodecAnalyzer(properties).analyze(List.of(cache), null).caches().get(0);
+
+		assertFalse(cacheReport.scanComplete());
+		assertTrue(cacheReport.scannedKeys() <= 1);
+	}
+
+	@Test
+	void analyzerReadsDoNotGoThroughCacheWriter() {
+		InMemoryCacheWriter writer = InMemoryCacheWriter.create().withConnection();
+		CompressingRedisCacheWrapper cache = writer.wrap("test", analyzerProperties());
+		cache.put("key", "value");
+
+		CacheReport cacheReport = new CodecAnalyzer(analyzerProperties()).analyze(List.of(cache), null).caches().get(0);
+
+		assertEquals(1, cacheReport.sampledKeys());
+		verify(writer, never()).get(anyString(), any(byte[].class));
+	}
+
+	@Test
+	void cacheWithoutKeyPrefixIsNotSampled() {
+		InMemoryCacheWriter writer = InMemoryCacheWriter.create().withConnection();
+		CompressingRedisCacheWrapper cache = writer.wrap("test",
+				RedisCacheConfiguration.defaultCacheConfig().disableKeyPrefix(), analyzerProperties());
+		cache.put("key", "value");
+
+		AnalysisReport report = new CodecAnalyzer(analyzerProperties()).analyze(List.of(cache), null);
+
+		assertEquals("incomplete: 1 cache(s) not sampled", report.status());
+		assertTrue(report.caches().get(0).status().startsWith("not sampled: the cache has no key prefix"));
+		assertTrue(writer.scans().isEmpty());
+	}
+
+	@Test
+	void recommendationOnlyNamesConfigurableSettings() {
+		InMemoryCacheWriter writer = InMemoryCacheWriter.create().withConnection();
+		CompressingRedisCacheWrapper cache = writer.wrap("test", analyzerProperties());
+		for (int i = 0; i < 25; i++) {
+			cache.put("small-" + i, "v" + i);
+			cache.put("large-" + i, "x".repeat(1_000) + i);
+		}
+
+		AnalysisReport report = new CodecAnalyzer(analyzerProperties()).analyze(List.of(cache), null);
+
+		Recommendation recommendation = report.recommendation();
+		CacheReport cacheReport = report.caches().get(0);
+		assertTrue(recommendation.thresholdSize() > 10 && recommendation.thresholdSize() < 1_000);
+		assertEquals(0, recommendation.parallelThresholdSize());
+		assertEquals(256 * 1024, recommendation.blockSize());
+		assertTrue(recommendation.reason().startsWith("values up to "));
+		assertEquals(recommendation.thresholdSize(), cacheReport.recommendation().thresholdSize());
+		assertEquals(List.of("none", "gzip"), cacheReport.codecs().stream().map(CodecResult::codec).toList());
+		assertTrue(cacheReport.hypotheticalCodecs().stream().allMatch(result -> result.codec().startsWith("deflate-")));
+	}
+
+	@Test
+	void analysisWithinMinIntervalIsRejected() {
+		CompressingRedisTargetProperties properties = analyzerProperties();
+		properties.setAnalyzerMinInterval(Duration.ofMinutes(1));
+		InMemoryCacheWriter writer = InMemoryCacheWriter.create().withConnection();
+		CompressingRedisCacheWrapper cache = writer.wrap("test", properties);
+		CodecAnalyzer analyzer = new CodecAnalyzer(properties);
+
+		assertEquals("ok", analyzer.analyze(List.of(cache), null).status());
+
+		AnalysisReport rejected = analyzer.analyze(List.of(cache), null);
+		assertTrue(rejected.status().startsWith("rejected: retry after "));
+		assertTrue(rejected.caches().isEmpty());
+		assertNull(rejected.recommendation());
+	}
+
+	@Test
+	void analysisWhileAnotherRunsIsRejected() {
+		InMemoryCacheWriter writer = InMemoryCacheWriter.create().withConnection();
+		CompressingRedisCacheWrapper cache = writer.wrap("test", analyzerProperties());
+		cache.put("key", "value");
+		CodecAnalyzer analyzer = new CodecAnalyzer(analyzerProperties());
+		AtomicReference<AnalysisReport> concurrent = new AtomicReference<>();
+		writer.onRawGet(() -> concurrent.set(analyzer.analyze(List.of(cache), null)));
+
+		assertEquals("ok", analyzer.analyze(List.of(cache), null).status());
+		assertEquals("rejected: an analysis is already running", concurrent.get().status());
+	}
+
+	private static CompressingRedisTargetProperties analyzerProperties() {
+		CompressingRedisTargetProperties properties = new CompressingRedisTargetProperties();
+		properties.setAnalyzerKeyDelay(Duration.ZERO);
+		properties.setAnalyzerScanPageDelay(Duration.ZERO);
+		properties.setAnalyzerMinInterval(Duration.ZERO);
+		return properties;
+	}
+
+}
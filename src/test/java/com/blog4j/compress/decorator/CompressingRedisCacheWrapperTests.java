@@ -0,0 +1,360 @@
+package com.blog4j.compress.decorator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.blog4j.compress.DeltaUtils;
+import com.blog4j.compress.target.CompressingRedisTargetProperties;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class CompressingRedisCacheWrapperTests {
+
+	@Test
+	void hotKeyIsServedFromLocalCopy() {
+		InMemoryCacheWriter writer = InMemoryCacheWriter.create();
+		CompressingRedisCacheWrapper cache = writer.wrap("test", localCopyProperties());
+		cache.put("key", "v1");
+		assertEquals("v1", cache.get("key").get());
+
+		writer.entries().clear();
+
+		assertEquals("v1", cache.get("key").get());
+	}
+
+	@Test
+	void valueReadBeforeConcurrentWriteIsNotKept() {
+		InMemoryCacheWriter writer = InMemoryCacheWriter.create();
+		CompressingRedisCacheWrapper cache = writer.wrap("test", localCopyProperties());
+		cache.put("key", "v1");
+
+		writer.afterNextGet(() -> cache.put("key", "v2"));
+
+		assertEquals("v1", cache.get("key").get());
+		assertEquals("v2", cache.get("key").get());
+	}
+
+	@Test
+	void valueReadBeforeConcurrentClearIsNotKept() {
+		InMemoryCacheWriter writer = InMemoryCacheWriter.create();
+		CompressingRedisCacheWrapper cache = writer.wrap("test", localCopyProperties());
+		cache.put("key", "v1");
+
+		writer.afterNextGet(cache::clear);
+
+		assertEquals("v1", cache.get("key").get());
+		assertNull(cache.get("key"));
+	}
+
+	@Test
+	void localCopiesStayBoundedUnderManyDistinctWrites() {
+		InMemoryCacheWriter writer = InMemoryCacheWriter.create();
+		CompressingRedisCacheWrapper cache = writer.wrap("test", localCopyProperties());
+		for (int i = 0; i < 10_000; i++) {
+			cache.put("key-" + i, "value");
+		}
+
+		assertTrue(localCopies(cache).isEmpty());
+
+		for (int round = 0; round < 10; round++) {
+			for (int i = 0; i < 8; i++) {
+				cache.get("key-" + i);
+			}
+		}
+
+		assertTrue(localCopies(cache).size() <= 4);
+	}
+
+	@Test
+	void fullDeltaWriteStoresValueOnceAndRewriteStoresDiff() {
+		InMemoryCacheWriter writer = InMemoryCacheWriter.create();
+		CompressingRedisCacheWrapper cache = writer.wrap("delta", deltaProperties());
+		cache.put("key", largeValue(0));
+
+		byte[] entry = writer.entries().get("delta::key");
+		assertTrue(DeltaUtils.isDeltaRecord(entry));
+		assertTrue(entry.length < 32);
+		assertEquals(2, writer.entries().size());
+
+		cache.put("key", largeValue(1));
+
+		byte[] delta = writer.entries().get("delta::key");
+		assertEquals(DeltaUtils.recordBaseId(entry), DeltaUtils.recordBaseId(delta));
+		assertTrue(delta.length < largeValue(1).length() / 4);
+		assertEquals(largeValue(1), cache.get("key").get());
+		assertEquals(largeValue(1), writer.wrap("delta", deltaProperties()).get("key").get());
+	}
+
+	@Test
+	void keysOverBaseCountAreWrittenWithoutBase() {
+		CompressingRedisTargetProperties properties = deltaProperties();
+		properties.setDeltaMaxBases(1);
+		InMemoryCacheWriter writer = InMemoryCacheWriter.create();
+		CompressingRedisCacheWrapper cache = writer.wrap("delta", properties);
+		cache.put("key-1", largeValue(0));
+		cache.put("key-2", largeValue(0));
+
+		assertEquals(3, writer.entries().size());
+		assertFalse(DeltaUtils.isDeltaRecord(writer.entries().get("delta::key-2")));
+		assertEquals(largeValue(0), cache.get("key-2").get());
+	}
+
+	@Test
+	void keysOverBaseBytesAreWrittenWithoutBase() {
+		CompressingRedisTargetProperties properties = deltaProperties();
+		properties.setDeltaMaxBaseBytes(16);
+		InMemoryCacheWriter writer = InMemoryCacheWriter.create();
+		CompressingRedisCacheWrapper cache = writer.wrap("delta", properties);
+		cache.put("key", largeValue(0));
+		cache.put("key", largeValue(1));
+
+		assertEquals(1, writer.entries().size());
+		assertEquals(largeValue(1), cache.get("key").get());
+	}
+
+	@Test
+	void baseReplacedByAnotherInstanceForcesFullWrite() {
+		InMemoryCacheWriter writer = InMemoryCacheWriter.create().withConnection();
+		CompressingRedisCacheWrapper cache = writer.wrap("delta", deltaProperties());
+		CompressingRedisCacheWrapper otherInstance = writer.wrap("delta", deltaProperties());
+		cache.put("key", largeValue(0));
+		otherInstance.put("key", largeValue(1));
+		long otherBaseId = DeltaUtils.recordBaseId(writer.entries().get("delta::key"));
+
+		cache.put("key", largeValue(2));
+
+		assertNotEquals(otherBaseId, DeltaUtils.recordBaseId(writer.entries().get("delta::key")));
+		assertEquals(largeValue(2), writer.wrap("delta", deltaProperties()).get("key").get());
+	}
+
+	@Test
+	void deltaIsOnlyWrittenWhileItExpiresBeforeBase() throws InterruptedException {
+		InMemoryCacheWriter writer = InMemoryCacheWriter.create();
+		RedisCacheConfiguration configuration = RedisCacheConfiguration.defaultCacheConfig().entryTtl(Duration.ofMillis(200));
+		CompressingRedisCacheWrapper cache = writer.wrap("delta", configuration, deltaProperties());
+		cache.put("key", largeValue(0));
+		long baseId = DeltaUtils.recordBaseId(writer.entries().get("delta::key"));
+		cache.put("key", largeValue(1));
+
+		assertEquals(baseId, DeltaUtils.recordBaseId(writer.entries().get("delta::key")));
+		assertTrue(writer.timeToLives().containsValue(Duration.ofMillis(400)));
+
+		Thread.sleep(250);
+		cache.put("key", largeValue(2));
+
+		assertNotEquals(baseId, DeltaUtils.recordBaseId(writer.entries().get("delta::key")));
+		assertEquals(largeValue(2), cache.get("key").get());
+	}
+
+	@Test
+	void deltaWithoutBaseIsLoadedAgain() {
+		InMemoryCacheWriter writer = InMemoryCacheWriter.create();
+		CompressingRedisCacheWrapper cache = writer.wrap("delta", deltaProperties());
+		cache.put("key", largeValue(0));
+		cache.put("key", largeValue(1));
+		writer.entries().keySet().removeIf(key -> !key.equals("delta::key"));
+		CompressingRedisCacheWrapper otherInstance = writer.wrap("delta", deltaProperties());
+
+		assertNull(otherInstance.get("key"));
+		assertEquals("loaded", otherInstance.get("key", () -> "loaded"));
+		assertEquals("loaded", otherInstance.get("key").get());
+	}
+
+	@Test
+	void baseDoesNotShareKeySpaceOfCache() {
+		InMemoryCacheWriter writer = InMemoryCacheWriter.create();
+		CompressingRedisCacheWrapper cache = writer.wrap("delta", deltaProperties());
+		cache.put("key#base", "user value");
+		cache.put("key", largeValue(0));
+
+		assertEquals("user value", cache.get("key#base").get());
+		assertEquals(largeValue(0), cache.get("key").get());
+		assertTrue(writer.entries().containsKey("delta::__base:delta::key"));
+		assertTrue(cache.isInternalKey("delta::__base:delta::key"));
+		assertFalse(cache.isInternalKey("delta::key#base"));
+	}
+
+	@Test
+	void scanCountsVisitedKeysOfOtherCaches() {
+		InMemoryCacheWriter writer = InMemoryCacheWriter.create().withConnection();
+		CompressingRedisCacheWrapper cache = writer.wrap("test", new CompressingRedisTargetProperties());
+		for (int i = 0; i < 250; i++) {
+			writer.entries().put("other::key-" + i, new byte[0]);
+		}
+		cache.put("key", "value");
+		List<String> keys = new ArrayList<>();
+
+		assertFalse(cache.scanKeys(100, Duration.ZERO, keys::add));
+		assertTrue(cache.scanKeys(1_000, Duration.ZERO, keys::add));
+		assertEquals(List.of("test::key"), keys.subList(keys.size() - 1, keys.size()));
+		assertNull(writer.scans().get(0).getBytePattern());
+	}
+
+	@Test
+	void scanIsRefusedWithoutKeyPrefix() {
+		InMemoryCacheWriter writer = InMemoryCacheWriter.create().withConnection();
+		CompressingRedisCacheWrapper cache = writer.wrap("test", RedisCacheConfiguration.defaultCacheConfig().disableKeyPrefix(),
+				new CompressingRedisTargetProperties());
+
+		assertEquals("", cache.getKeyNamespace());
+		assertThrows(IllegalStateException.class, () -> cache.scanKeys(100, Duration.ZERO, key -> true));
+		assertTrue(writer.scans().isEmpty());
+	}
+
+	@Test
+	void keysAreWrittenUnderCurrentGeneration() {
+		InMemoryCacheWriter writer = InMemoryCacheWriter.create();
+		CompressingRedisCacheWrapper cache = writer.wrap("test", expiringConfiguration(), generationProperties());
+		cache.put("key", "v1");
+
+		assertEquals("test::v0:", cache.getKeyNamespace());
+		assertTrue(writer.entries().containsKey("test::v0:key"));
+
+		cache.clear();
+		cache.put("key", "v2");
+
+		assertEquals("test::v1:", cache.getKeyNamespace());
+		assertEquals("1", new String(writer.entries().get("test::__generation"), StandardCharsets.UTF_8));
+		assertTrue(writer.entries().containsKey("test::v1:key"));
+		assertTrue(writer.entries().containsKey("test::v0:key"));
+		assertTrue(cache.isInternalKey("test::__generation"));
+	}
+
+	@Test
+	void generationClearedByAnotherInstanceIsPickedUpAfterRefreshInterval() throws InterruptedException {
+		CompressingRedisTargetProperties properties = generationProperties();
+		properties.setGenerationRefreshInterval(Duration.ofMillis(500));
+		InMemoryCacheWriter writer = InMemoryCacheWriter.create();
+		CompressingRedisCacheWrapper cache = writer.wrap("test", expiringConfiguration(), properties);
+		CompressingRedisCacheWrapper otherInstance = writer.wrap("test", expiringConfiguration(), properties);
+		cache.put("key", "value");
+
+		otherInstance.clear();
+
+		assertEquals("value", cache.get("key").get());
+		assertNull(otherInstance.get("key"));
+
+		Thread.sleep(600);
+
+		assertNull(cache.get("key"));
+	}
+
+	@Test
+	void evictAndClearOnlyTouchCurrentGeneration() {
+		InMemoryCacheWriter writer = InMemoryCacheWriter.create();
+		CompressingRedisCacheWrapper cache = writer.wrap("test", expiringConfiguration(), generationProperties());
+		cache.put("key", "v1");
+		cache.clear();
+
+		assertNull(cache.get("key"));
+
+		cache.put("key", "v2");
+
+		assertEquals("v2", cache.get("key").get());
+
+		cache.evict("key");
+
+		assertNull(cache.get("key"));
+		assertFalse(writer.entries().containsKey("test::v1:key"));
+		assertTrue(writer.entries().containsKey("test::v0:key"));
+	}
+
+	@Test
+	void generationIsIncrementedOnConnection() {
+		InMemoryCacheWriter writer = InMemoryCacheWriter.create().withConnection();
+		CompressingRedisCacheWrapper cache = writer.wrap("test", expiringConfiguration(), generationProperties());
+		CompressingRedisCacheWrapper otherInstance = writer.wrap("test", expiringConfiguration(), generationProperties());
+		cache.put("key", "value");
+		otherInstance.get("key");
+
+		cache.clear();
+		otherInstance.clear();
+
+		assertEquals("2", new String(writer.entries().get("test::__generation"), StandardCharsets.UTF_8));
+		assertEquals("test::v2:", otherInstance.getKeyNamespace());
+		assertFalse(writer.timeToLives().containsKey("test::__generation"));
+	}
+
+	@Test
+	void sweepEscapesGlobCharactersOfCacheName() throws InterruptedException {
+		CompressingRedisTargetProperties properties = generationProperties();
+		properties.setSweepStaleGenerations(true);
+		InMemoryCacheWriter writer = InMemoryCacheWriter.create().withConnection();
+		CompressingRedisCacheWrapper cache = writer.wrap("we*ird[1]", expiringConfiguration(), properties);
+		cache.put("key", "value");
+		writer.entries().put("weXird[1]::v0:key", new byte[0]);
+
+		cache.clear();
+		cache.put("key", "value");
+
+		long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+		while (writer.entries().containsKey("we*ird[1]::v0:key") && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+		assertFalse(writer.entries().containsKey("we*ird[1]::v0:key"));
+		assertTrue(writer.entries().containsKey("weXird[1]::v0:key"));
+		assertTrue(writer.entries().containsKey("we*ird[1]::v1:key"));
+		assertTrue(writer.entries().containsKey("we*ird[1]::__generation"));
+		assertEquals("we\\*ird\\[1\\]::v0:*", new String(writer.scans().get(0).getBytePattern(), StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void staleGenerationsAreSweptWhenEntriesDoNotExpire() {
+		CompressingRedisTargetProperties properties = generationProperties();
+		InMemoryCacheWriter writer = InMemoryCacheWriter.create().withConnection();
+
+		assertEquals(true, ReflectionTestUtils.getField(writer.wrap("test", properties), "sweepStaleGenerations"));
+		assertEquals(false, ReflectionTestUtils.getField(writer.wrap("test", expiringConfiguration(), properties),
+				"sweepStaleGenerations"));
+		assertEquals(false, ReflectionTestUtils.getField(InMemoryCacheWriter.create().wrap("test", properties),
+				"sweepStaleGenerations"));
+	}
+
+	private static CompressingRedisTargetProperties localCopyProperties() {
+		CompressingRedisTargetProperties properties = new CompressingRedisTargetProperties();
+		properties.setHotKeyTracking(true);
+		properties.setHotKeyTopK(4);
+		properties.setHotKeyMinShare(0);
+		properties.setHotKeyLocalTtl(Duration.ofMinutes(1));
+		return properties;
+	}
+
+	private static CompressingRedisTargetProperties generationProperties() {
+		CompressingRedisTargetProperties properties = new CompressingRedisTargetProperties();
+		properties.setGenerationNamespace(true);
+		return properties;
+	}
+
+	private static RedisCacheConfiguration expiringConfiguration() {
+		return RedisCacheConfiguration.defaultCacheConfig().entryTtl(Duration.ofMinutes(1));
+	}
+
+	private static CompressingRedisTargetProperties deltaProperties() {
+		CompressingRedisTargetProperties properties = new CompressingRedisTargetProperties();
+		properties.setDeltaCaches(List.of("delta"));
+		return properties;
+	}
+
+	private static String largeValue(int version) {
+		StringBuilder value = new StringBuilder();
+		for (int i = 0; i < 200; i++) {
+			value.append("item-").append(i).append(i == 100 ? "-v" + version : "").append(',');
+		}
+		return value.toString();
+	}
+
+	private static Map<?, ?> localCopies(CompressingRedisCacheWrapper cache) {
+		return (Map<?, ?>) ReflectionTestUtils.getField(cache, "localCopies");
+	}
+
+}
@@ -0,0 +1,205 @@
+package com.blog4j.compress.decorator;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.RETURNS_DEFAULTS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import com.blog4j.compress.target.CompressingRedisTargetProperties;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisKeyCommands;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+
+/**
+ * {@link RedisCacheWriter} keeping entries in memory. Only the operations the wrapper uses are implemented,
+ * {@link #create()} mocks the rest. {@link #withConnection()} exposes a mocked connection on the same entries
+ * in the field the wrapper resolves from the default cache writer.
+ */
+public abstract class InMemoryCacheWriter implements RedisCacheWriter {
+
+	private final Map<String, byte[]> entries = new ConcurrentHashMap<>();
+	private final Map<String, Duration> timeToLives = new ConcurrentHashMap<>();
+	private final AtomicReference<Runnable> afterNextGet = new AtomicReference<>();
+	private final List<ScanOptions> scans = new CopyOnWriteArrayList<>();
+	private final AtomicReference<Runnable> onRawGet = new AtomicReference<>();
+
+	// resolved by CompressingRedisCacheWrapper like the field of the default cache writer
+	private RedisConnectionFactory connectionFactory;
+
+	public static InMemoryCacheWriter create() {
+		return mock(InMemoryCacheWriter.class, withSettings().useConstructor().defaultAnswer(CALLS_REAL_METHODS));
+	}
+
+	public CompressingRedisCacheWrapper wrap(String name, CompressingRedisTargetProperties properties) {
+		return wrap(name, RedisCacheConfiguration.defaultCacheConfig(), properties);
+	}
+
+	public CompressingRedisCacheWrapper wrap(String name, RedisCacheConfiguration configuration,
+			CompressingRedisTargetProperties properties) {
+		return new CompressingRedisCacheWrapper(new RedisCache(name, this, configuration) {
+		}, properties);
+	}
+
+	public InMemoryCacheWriter withConnection() {
+		RedisConnectionFactory factory = mock(RedisConnectionFactory.class);
+		RedisConnection connection = mock(RedisConnection.class);
+		RedisKeyCommands keyCommands = mock(RedisKeyCommands.class);
+		RedisStringCommands stringCommands = mock(RedisStringCommands.class);
+		when(factory.getConnection()).thenReturn(connection);
+		when(connection.keyCommands()).thenReturn(keyCommands);
+		when(connection.stringCommands()).thenReturn(stringCommands);
+		when(keyCommands.scan(any(ScanOptions.class))).thenAnswer(invocation -> scan(invocation.getArgument(0)));
+		when(keyCommands.unlink(any(byte[][].class))).thenAnswer(invocation -> {
+			long unlinked = 0;
+			for (byte[] key : (byte[][]) invocation.getRawArguments()[0]) {
+				unlinked += entries.remove(string(key)) != null ? 1 : 0;
+			}
+			return unlinked;
+		});
+		when(stringCommands.incr(any(byte[].class))).thenAnswer(invocation -> {
+			byte[] value = entries.merge(string(invocation.getArgument(0)), "1".getBytes(StandardCharsets.UTF_8),
+					(current, one) -> Long.toString(Long.parseLong(string(current)) + 1).getBytes(StandardCharsets.UTF_8));
+			return Long.parseLong(string(value));
+		});
+		when(stringCommands.get(any(byte[].class))).thenAnswer(invocation -> {
+			Runnable action = onRawGet.get();
+			if (action != null) {
+				action.run();
+			}
+			return entries.get(string(invocation.getArgument(0)));
+		});
+		when(stringCommands.getRange(any(byte[].class), anyLong(), anyLong())).thenAnswer(invocation -> {
+			byte[] value = entries.get(string(invocation.getArgument(0)));
+			if (value == null) {
+				return new byte[0];
+			}
+			long start = invocation.<Long>getArgument(1);
+			long end = Math.min(invocation.<Long>getArgument(2), value.length - 1L);
+			return Arrays.copyOfRange(value, (int) start, (int) end + 1);
+		});
+		this.connectionFactory = factory;
+		return this;
+	}
+
+	public Map<String, byte[]> entries() {
+		return entries;
+	}
+
+	public Map<String, Duration> timeToLives() {
+		return timeToLives;
+	}
+
+	public List<ScanOptions> scans() {
+		return scans;
+	}
+
+	/**
+	 * Run {@code action} once, after the next {@link #get(String, byte[])} read its value.
+	 */
+	public void afterNextGet(Runnable action) {
+		afterNextGet.set(action);
+	}
+
+	/**
+	 * Run {@code action} before every GET issued on the connection.
+	 */
+	public void onRawGet(Runnable action) {
+		onRawGet.set(action);
+	}
+
+	@Override
+	public byte[] get(String name, byte[] key) {
+		byte[] value = entries.get(string(key));
+		Runnable action = afterNextGet.getAndSet(null);
+		if (action != null) {
+			action.run();
+		}
+		return value;
+	}
+
+	@Override
+	public void put(String name, byte[] key, byte[] value, Duration ttl) {
+		entries.put(string(key), value);
+		if (ttl != null) {
+			timeToLives.put(string(key), ttl);
+		}
+	}
+
+	@Override
+	public byte[] putIfAbsent(String name, byte[] key, byte[] value, Duration ttl) {
+		return entries.putIfAbsent(string(key), value);
+	}
+
+	@Override
+	public void remove(String name, byte[] key) {
+		entries.remove(string(key));
+	}
+
+	@Override
+	public void clean(String name, byte[] pattern) {
+		Pattern regex = globToRegex(string(pattern));
+		entries.keySet().removeIf(key -> regex.matcher(key).matches());
+	}
+
+	private Cursor<byte[]> scan(ScanOptions options) {
+		scans.add(options);
+		byte[] bytePattern = options.getBytePattern();
+		Pattern regex = bytePattern != null ? globToRegex(string(bytePattern)) : null;
+		List<byte[]> keys = new ArrayList<>();
+		for (String key : entries.keySet()) {
+			if (regex == null || regex.matcher(key).matches()) {
+				keys.add(key.getBytes(StandardCharsets.UTF_8));
+			}
+		}
+		Iterator<byte[]> iterator = keys.iterator();
+		@SuppressWarnings("unchecked")
+		Cursor<byte[]> cursor = mock(Cursor.class, invocation -> switch (invocation.getMethod().getName()) {
+			case "hasNext" -> iterator.hasNext();
+			case "next" -> iterator.next();
+			default -> RETURNS_DEFAULTS.answer(invocation);
+		});
+		return cursor;
+	}
+
+	static Pattern globToRegex(String glob) {
+		StringBuilder regex = new StringBuilder();
+		for (int i = 0; i < glob.length(); i++) {
+			char c = glob.charAt(i);
+			if (c == '\\' && i + 1 < glob.length()) {
+				regex.append(Pattern.quote(String.valueOf(glob.charAt(++i))));
+			} else if (c == '*') {
+				regex.append(".*");
+			} else if (c == '?') {
+				regex.append('.');
+			} else {
+				regex.append(Pattern.quote(String.valueOf(c)));
+			}
+		}
+		return Pattern.compile(regex.toString(), Pattern.DOTALL);
+	}
+
+	private static String string(byte[] bytes) {
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+}
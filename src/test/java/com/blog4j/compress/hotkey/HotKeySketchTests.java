@@ -0,0 +1,98 @@
+package com.blog4j.compress.hotkey;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.blog4j.compress.hotkey.HotKeySketch.HotKey;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class HotKeySketchTests {
+
+	@Test
+	void colderKeyIsEvictedFromTopK() {
+		HotKeySketch sketch = new HotKeySketch(1024, 2, 0, 0);
+		record(sketch, "a", 10);
+		record(sketch, "b", 5);
+		record(sketch, "c", 3);
+
+		assertEquals(List.of("a", "b"), keys(sketch.topKeys(10)));
+		assertFalse(sketch.isHot("c"));
+
+		record(sketch, "c", 10);
+
+		assertEquals(List.of("c", "a"), keys(sketch.topKeys(10)));
+		assertFalse(sketch.isHot("b"));
+	}
+
+	@Test
+	void singleAccessIsNotHot() {
+		HotKeySketch sketch = new HotKeySketch(1024, 4, 0, 0);
+		record(sketch, "a", 1);
+
+		assertFalse(sketch.isHot("a"));
+		assertTrue(sketch.topKeys(10).isEmpty());
+	}
+
+	@Test
+	void keysBelowMinShareAreNotHot() {
+		HotKeySketch sketch = new HotKeySketch(1024, 8, 0, 0.1);
+		for (int i = 0; i < 100; i++) {
+			record(sketch, "cold-" + i, 1);
+		}
+		record(sketch, "hot", 20);
+
+		assertTrue(sketch.isHot("hot"));
+		assertEquals(List.of("hot"), keys(sketch.topKeys(10)));
+	}
+
+	@Test
+	void agingHalvesCountsAndDropsDecayedKeys() {
+		HotKeySketch sketch = new HotKeySketch(1024, 4, 10, 0);
+		record(sketch, "a", 9);
+		record(sketch, "b", 1);
+
+		assertEquals(4, sketch.topKeys(1).get(0).accesses());
+
+		record(sketch, "b", 10);
+
+		assertTrue(sketch.isHot("a"));
+		assertEquals(List.of("b", "a"), keys(sketch.topKeys(10)));
+
+		record(sketch, "c", 10);
+
+		assertFalse(sketch.isHot("a"));
+		assertEquals(List.of("c", "b"), keys(sketch.topKeys(10)));
+	}
+
+	@Test
+	void bytesAreEstimatedPerKeyAndTotalsSurviveReset() {
+		HotKeySketch sketch = new HotKeySketch(1024, 4, 0, 0);
+		for (int i = 0; i < 3; i++) {
+			sketch.record("a", 100, 10);
+		}
+
+		HotKey hotKey = sketch.topKeys(1).get(0);
+		assertEquals(300, hotKey.rawBytes());
+		assertEquals(30, hotKey.storedBytes());
+
+		sketch.reset();
+
+		assertTrue(sketch.topKeys(10).isEmpty());
+		assertEquals(3, sketch.getTotalAccesses());
+		assertEquals(300, sketch.getTotalRawBytes());
+		assertEquals(30, sketch.getTotalStoredBytes());
+	}
+
+	private static void record(HotKeySketch sketch, String key, int accesses) {
+		for (int i = 0; i < accesses; i++) {
+			sketch.record(key, 1, 1);
+		}
+	}
+
+	private static List<String> keys(List<HotKey> hotKeys) {
+		return hotKeys.stream().map(HotKey::key).toList();
+	}
+
+}